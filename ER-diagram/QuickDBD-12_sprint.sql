@@ -15,11 +15,15 @@ CREATE TABLE IF NOT EXISTS Films (
   release_date DATE,
   duration INTEGER,
   rating_id INTEGER,
+  likes_count INTEGER DEFAULT 0 NOT NULL,
   CONSTRAINT films_duration_chk CHECK(duration > 0),
   CONSTRAINT films_release_date_chk CHECK(release_date >= DATE '1895-12-28'),
   FOREIGN KEY (rating_id) REFERENCES Rating(rating_id)
 );
 
+ALTER TABLE Films ADD COLUMN IF NOT EXISTS likes_count INTEGER DEFAULT 0 NOT NULL;
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON Films (likes_count DESC, film_id);
+
 CREATE TABLE IF NOT EXISTS Films_Genres (
   film_id INTEGER NOT NULL,
   genre_id INTEGER NOT NULL,
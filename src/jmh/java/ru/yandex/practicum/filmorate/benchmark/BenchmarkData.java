@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.migration.ForeignKeyIndexes;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Детерминированное наполнение H2 в памяти для бенчмарков: одинаковые size и seed дают одинаковые данные.
+ * На size фильмов приходится size / 10 пользователей (не меньше 100), в среднем 3 лайка и 1.5 жанра
+ * на фильм и 10 друзей на пользователя.
+ */
+public final class BenchmarkData {
+    public static final long SEED = 42;
+
+    private static final int GENRES = 6;
+    private static final int RATINGS = 5;
+    private static final int BATCH_SIZE = 10_000;
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(1950, 1, 1);
+
+    private BenchmarkData() {
+    }
+
+    public static int usersFor(int films) {
+        return Math.max(100, films / 10);
+    }
+
+    /**
+     * Создает и наполняет БД, затем поднимает контекст приложения поверх нее без веб-сервера,
+     * чтобы индексы в памяти строились уже по готовым данным.
+     */
+    public static ConfigurableApplicationContext start(int films) throws SQLException {
+        String url = "jdbc:h2:mem:bench" + films + ";DB_CLOSE_DELAY=-1";
+        Flyway.configure()
+                .dataSource(url, "sa", "password")
+                .javaMigrations(new ForeignKeyIndexes())
+                .load()
+                .migrate();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "password")) {
+            seed(connection, films, SEED);
+        }
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                                "--logging.level.root=WARN",
+                        "--filmorate.cache.films.enabled=false");
+    }
+
+    public static void seed(Connection connection, int films, long seed) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        int users = usersFor(films);
+        connection.setAutoCommit(false);
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Users (login, name, email, birthday) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= users; i++) {
+                ps.setString(1, "user" + i);
+                ps.setString(2, "User " + i);
+                ps.setString(3, "user" + i + "@mail.com");
+                ps.setDate(4, Date.valueOf(FIRST_RELEASE.plusDays(random.nextInt(20_000))));
+                addBatch(ps, connection, i);
+            }
+            ps.executeBatch();
+        }
+
+        int[] likesCount = new int[films + 1];
+        try (PreparedStatement likes = connection.prepareStatement(
+                "INSERT INTO Likes (film_id, user_id) VALUES (?, ?)");
+             PreparedStatement genres = connection.prepareStatement(
+                     "INSERT INTO Films_Genres (film_id, genre_id) VALUES (?, ?)");
+             PreparedStatement ps = connection.prepareStatement(
+                     "INSERT INTO Films (name, description, release_date, duration, rating_id) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= films; i++) {
+                ps.setString(1, "Film " + i);
+                ps.setString(2, "Description of film " + i);
+                ps.setDate(3, Date.valueOf(FIRST_RELEASE.plusDays(random.nextInt(25_000))));
+                ps.setInt(4, 60 + random.nextInt(120));
+                ps.setInt(5, 1 + random.nextInt(RATINGS));
+                addBatch(ps, connection, i);
+            }
+            ps.executeBatch();
+
+            int likeRows = 0;
+            int genreRows = 0;
+            for (int filmId = 1; filmId <= films; filmId++) {
+                int first = random.nextInt(users);
+                int count = random.nextInt(7);
+                for (int j = 0; j < count; j++) {
+                    likes.setInt(1, filmId);
+                    likes.setInt(2, 1 + (first + j * 7919) % users);
+                    addBatch(likes, connection, ++likeRows);
+                }
+                likesCount[filmId] = count;
+
+                int genre = random.nextInt(GENRES);
+                int genreCount = random.nextInt(4);
+                for (int j = 0; j < genreCount; j++) {
+                    genres.setInt(1, filmId);
+                    genres.setInt(2, 1 + (genre + j) % GENRES);
+                    addBatch(genres, connection, ++genreRows);
+                }
+            }
+            likes.executeBatch();
+            genres.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE Films SET likes_count = ? WHERE film_id = ?")) {
+            for (int filmId = 1; filmId <= films; filmId++) {
+                ps.setInt(1, likesCount[filmId]);
+                ps.setInt(2, filmId);
+                addBatch(ps, connection, filmId);
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Friends (user_id, friend_id) VALUES (?, ?)")) {
+            int rows = 0;
+            for (int userId = 1; userId <= users; userId++) {
+                int first = random.nextInt(users);
+                int count = random.nextInt(21);
+                for (int j = 0; j < count; j++) {
+                    int friendId = 1 + (first + j * 7919) % users;
+                    if (friendId != userId) {
+                        ps.setInt(1, userId);
+                        ps.setInt(2, friendId);
+                        addBatch(ps, connection, ++rows);
+                    }
+                }
+            }
+            ps.executeBatch();
+        }
+        connection.commit();
+    }
+
+    private static void addBatch(PreparedStatement ps, Connection connection, int row) throws SQLException {
+        ps.addBatch();
+        if (row % BATCH_SIZE == 0) {
+            ps.executeBatch();
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.dao.UserDbStorage;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути хранилищ и сервиса на H2 в памяти, наполненной {@link BenchmarkData}.
+ * Пример запуска: mvn -Pjmh test-compile exec:exec -Djmh.args="DatabaseBenchmark -p size=10000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx6g"})
+public class DatabaseBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private FilmDbStorage filmStorage;
+    private UserDbStorage userStorage;
+    private FilmService filmService;
+    private int users;
+    private Film film;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        context = BenchmarkData.start(size);
+        filmStorage = context.getBean(FilmDbStorage.class);
+        userStorage = context.getBean(UserDbStorage.class);
+        filmService = context.getBean(FilmService.class);
+        users = BenchmarkData.usersFor(size);
+        random = new SplittableRandom(BenchmarkData.SEED);
+
+        film = filmStorage.findFilm(1);
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (int genreId = 1; genreId <= 6; genreId++) {
+            Genre genre = new Genre();
+            genre.setId(genreId);
+            genres.add(genre);
+        }
+        film.setGenres(genres);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Collection<Film> findAll() {
+        return filmStorage.findAll();
+    }
+
+    @Benchmark
+    public Film findFilm() {
+        return filmStorage.findFilm(1 + random.nextInt(size));
+    }
+
+    @Benchmark
+    public Collection<Film> getPopularFilms() {
+        return filmService.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public Collection<User> findCommonFriends() {
+        return userStorage.findCommonFriends(1 + random.nextInt(users), 1 + random.nextInt(users));
+    }
+
+    /**
+     * Обновление фильма с шестью жанрами; основную стоимость дает setFilmGenres.
+     */
+    @Benchmark
+    public Film updateWithGenres() {
+        return filmStorage.update(film);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.FriendSuggestions;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка GET /users/{id}/friends/suggestions без БД: расчет для пользователя с hubFriends друзьями,
+ * среди которых есть такие же "хабы", и попадание в кэш. Режим SampleTime дает перцентили (p0.99).
+ * Цель при max-fan-out=500: p99 расчета не больше 10 мс, p99 попадания в кэш - не больше 50 мкс
+ * (грубая проверка бюджета расчета - FriendSuggestionsTest).
+ * Пример запуска: mvn -Pjmh test-compile exec:exec -Djmh.args="FriendSuggestionsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+public class FriendSuggestionsBenchmark {
+    private static final int USERS = 200_000;
+    private static final int HUBS = 100;
+    private static final int FRIENDS_PER_USER = 20;
+
+    @Param({"10000", "50000"})
+    public int hubFriends;
+
+    private FriendSuggestions uncached;
+    private FriendSuggestions cached;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@mail.com");
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            users.add(user);
+        }
+        storage.createAll(users);
+        SplittableRandom random = new SplittableRandom(BenchmarkData.SEED);
+        List<Friendship> friendships = new ArrayList<>();
+        for (int id = 1; id <= USERS; id++) {
+            int friends = id <= HUBS ? hubFriends : FRIENDS_PER_USER;
+            for (int i = 0; i < friends; i++) {
+                int friendId = i % 10 == 0 ? random.nextInt(1, HUBS + 1) : random.nextInt(1, USERS + 1);
+                if (friendId != id) {
+                    friendships.add(new Friendship(id, friendId));
+                }
+            }
+        }
+        storage.addFriends(friendships);
+        FriendGraph graph = new FriendGraph(storage);
+        graph.rebuild();
+        uncached = new FriendSuggestions(graph, 500, 100, 0);
+        cached = new FriendSuggestions(graph, 500, 100, USERS);
+        for (int id = 1; id <= HUBS; id++) {
+            cached.suggest(id, 100);
+        }
+        this.random = new SplittableRandom(BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public int[] hubComputed() {
+        return uncached.suggest(random.nextInt(1, HUBS + 1), 100);
+    }
+
+    @Benchmark
+    public int[] hubCached() {
+        return cached.suggest(random.nextInt(1, HUBS + 1), 100);
+    }
+}
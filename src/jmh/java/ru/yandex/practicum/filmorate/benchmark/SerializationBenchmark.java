@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.IntSet;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация Film в JSON тем же набором модулей Jackson, что и в приложении.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int likes;
+
+    private ObjectMapper mapper;
+    private Film film;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = JsonMapper.builder().findAndAddModules().build();
+        film = new Film();
+        film.setId(1);
+        film.setName("Film");
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        Rating rating = new Rating();
+        rating.setId(1);
+        rating.setName("G");
+        film.setMpa(rating);
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (int genreId = 1; genreId <= 3; genreId++) {
+            Genre genre = new Genre();
+            genre.setId(genreId);
+            genre.setName("Genre " + genreId);
+            genres.add(genre);
+        }
+        film.setGenres(genres);
+        IntSet filmLikes = new IntSet(likes);
+        for (int userId = 1; userId <= likes; userId++) {
+            filmLikes.add(userId);
+        }
+        film.setLikes(filmLikes);
+        json = mapper.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return mapper.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public Film deserialize() throws Exception {
+        return mapper.readValue(json, Film.class);
+    }
+}
@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.IntSet;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * LRU-кэш собранных фильмов (с жанрами, рейтингом и лайками).
+ * Загрузка идет вне блокировки, поэтому на время загрузки по id регистрируется метка, а результат
+ * кладется в кэш, только если метку не сняла инвалидация этого id - иначе можно сохранить устаревшие
+ * данные. Инвалидация других фильмов загрузку не затрагивает.
+ * Film изменяем, поэтому в кэше лежит своя копия, а наружу отдаются копии.
+ */
+@Component
+@Slf4j
+public class FilmCache {
+    private final boolean enabled;
+    private final int maxSize;
+    private final Map<Integer, Film> films;
+    private final Map<Integer, Object> loading = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public FilmCache(@Value("${filmorate.cache.films.enabled:true}") boolean enabled,
+                     @Value("${filmorate.cache.films.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.films = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Film> eldest) {
+                if (size() > FilmCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        log.info("Кэш фильмов {}, максимальный размер: {}", enabled ? "включен" : "отключен", maxSize);
+    }
+
+    public Film get(int id, IntFunction<Film> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        Object load = new Object();
+        synchronized (films) {
+            Film film = films.get(id);
+            if (film != null) {
+                hits.increment();
+                return copy(film);
+            }
+            loading.put(id, load);
+        }
+        misses.increment();
+        Film film;
+        try {
+            film = loader.apply(id);
+        } catch (RuntimeException e) {
+            synchronized (films) {
+                loading.remove(id, load);
+            }
+            throw e;
+        }
+        synchronized (films) {
+            if (loading.remove(id, load)) {
+                films.put(id, copy(film));
+            }
+        }
+        return film;
+    }
+
+    public void invalidate(int id) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (films) {
+            loading.remove(id);
+            films.remove(id);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        synchronized (films) {
+            return films.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static Film copy(Film film) {
+        Film result = new Film();
+        result.setId(film.getId());
+        result.setName(film.getName());
+        result.setDescription(film.getDescription());
+        result.setReleaseDate(film.getReleaseDate());
+        result.setDuration(film.getDuration());
+        result.setMpa(film.getMpa());
+        result.setGenres(new LinkedHashSet<>(film.getGenres()));
+        result.setLikes(new IntSet(film.getLikes()));
+        return result;
+    }
+}
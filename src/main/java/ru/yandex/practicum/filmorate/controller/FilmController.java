@@ -1,16 +1,36 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 @RestController
 @RequestMapping("/films")
@@ -18,11 +38,38 @@ import java.util.Collection;
 @Validated
 public class FilmController {
     private final FilmService service;
+    private final ObjectMapper objectMapper;
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> findAll() {
-        return service.findAll();
+    public Collection<Film> findAll(@RequestParam(required = false) @PositiveOrZero Integer after,
+                                   @RequestParam(required = false) @Positive @Max(1000) Integer limit) {
+        if (after == null && limit == null) {
+            return service.findAll();
+        }
+        return service.findPage(after, limit);
+    }
+
+    @GetMapping(produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(out))) {
+                generator.setRootValueSeparator(null);
+                service.streamAll(film -> {
+                    try {
+                        generator.writeObject(film);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
     }
 
     @GetMapping("/{id}")
@@ -37,6 +84,40 @@ public class FilmController {
         return service.create(film);
     }
 
+    /**
+     * Пакетный импорт: JSON-массив фильмов или NDJSON, тело разбирается по одному фильму.
+     * Возвращает id созданных фильмов в порядке следования в запросе.
+     */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<Integer> importFilms(InputStream body) throws IOException {
+        try (MappingIterator<Film> films = objectMapper.readerFor(Film.class).readValues(body)) {
+            return service.importFilms(new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    try {
+                        return films.hasNextValue();
+                    } catch (JsonProcessingException e) {
+                        throw new ValidationException("Некорректный JSON: " + e.getOriginalMessage());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public Film next() {
+                    try {
+                        return films.nextValue();
+                    } catch (JsonProcessingException e) {
+                        throw new ValidationException("Некорректный JSON: " + e.getOriginalMessage());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+    }
+
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
     public Film update(@Valid @RequestBody Film newFilm) {
@@ -55,9 +136,15 @@ public class FilmController {
         service.removeLike(id, userId);
     }
 
+    @PostMapping("/likes/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<LikeResult> addLikes(@RequestBody @NotEmpty @Size(max = 10000) List<@Valid Like> likes) {
+        return service.addLikes(likes);
+    }
+
     @GetMapping("/popular")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getPopularFilms(@RequestParam(defaultValue = "10") @Positive Integer count) {
+    public Collection<Film> getPopularFilms(@RequestParam(defaultValue = "10") @Positive @Max(1000) Integer count) {
         return service.getPopularFilms(count);
     }
 }
\ No newline at end of file
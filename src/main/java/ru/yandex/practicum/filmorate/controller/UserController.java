@@ -1,12 +1,16 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
@@ -17,11 +21,16 @@ import java.util.Collection;
 @Validated
 public class UserController {
     private final UserService service;
+    private final FilmService filmService;
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public Collection<User> findAll() {
-        return service.findAll();
+    public Collection<User> findAll(@RequestParam(required = false) @PositiveOrZero Integer after,
+                                   @RequestParam(required = false) @Positive @Max(1000) Integer limit) {
+        if (after == null && limit == null) {
+            return service.findAll();
+        }
+        return service.findPage(after, limit);
     }
 
     @GetMapping("/{id}")
@@ -60,6 +69,20 @@ public class UserController {
         return service.findFriends(id);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<User> findFriendSuggestions(@PathVariable @Positive int id,
+                                                  @RequestParam(defaultValue = "10") @Positive @Max(100) int count) {
+        return service.findFriendSuggestions(id, count);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<Film> findRecommendations(@PathVariable @Positive int id,
+                                                @RequestParam(defaultValue = "10") @Positive @Max(100) int count) {
+        return filmService.getRecommendations(id, count);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     @ResponseStatus(HttpStatus.OK)
     public Collection<User> findCommonFriends(@PathVariable @Positive int id, @PathVariable @Positive int otherId) {
@@ -1,87 +1,186 @@
 package ru.yandex.practicum.filmorate.dao;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dao.mappers.FilmRowMapper;
-import ru.yandex.practicum.filmorate.dao.mappers.GenreRowMapper;
 import ru.yandex.practicum.filmorate.exception.DataConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.IntSet;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.util.IntPairConsumer;
 
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
 
 @Repository
-@Qualifier("filmDbStorage")
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "db", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class FilmDbStorage implements FilmStorage {
     private final JdbcTemplate jdbc;
     private final FilmRowMapper mapper;
-    private final RatingDbStorage rStorage;
+    private final ReferenceDataRegistry referenceData;
+    private final ParallelHydration hydration;
 
     private static final String FIND_ALL_QUERY = "SELECT * FROM Films";
-    private static final String FIND_BY_ID_QUERY = "SELECT * FROM Films WHERE film_id = ?";
+    private static final String FIND_BY_ID_QUERY = "SELECT f.*, " +
+            "ARRAY(SELECT fg.genre_id FROM Films_Genres fg WHERE fg.film_id = f.film_id) AS genre_ids, " +
+            "ARRAY(SELECT l.user_id FROM Likes l WHERE l.film_id = f.film_id ORDER BY l.user_id) AS like_ids " +
+            "FROM Films f WHERE f.film_id = ?";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM Films WHERE film_id IN (%s)";
+    private static final String FIND_ALL_IDS_QUERY = "SELECT film_id FROM Films";
+    private static final String FIND_EXISTING_IDS_QUERY = "SELECT film_id FROM Films WHERE film_id IN (%s)";
+    private static final String FIND_PAGE_QUERY = "SELECT * FROM Films WHERE film_id > ? ORDER BY film_id LIMIT ?";
+    private static final String STREAM_FILMS_QUERY = "SELECT * FROM Films ORDER BY film_id";
+    private static final String STREAM_LIKES_QUERY = "SELECT film_id, user_id FROM Likes ORDER BY film_id, user_id";
+    private static final String STREAM_GENRES_QUERY = "SELECT film_id, genre_id FROM Films_Genres ORDER BY film_id";
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int BATCH_SIZE = 1000;
+    private static final String FIND_POPULAR_IDS_QUERY = "SELECT film_id FROM Films " +
+            "ORDER BY likes_count DESC, film_id LIMIT ?";
     private static final String CREATE_QUERY = "INSERT INTO Films (name, description, release_date, duration, rating_id) " +
             "VALUES (?, ?, ?, ?, ?)";
     private static final String UPDATE_QUERY = "UPDATE Films SET name = ?,description = ?, release_date = ?," +
             " duration = ?, rating_id = ? WHERE film_id = ?";
 
-    private static final String FIND_ALL_RATINGS_BY_FILMS = "SELECT f.film_id, r.rating_id, r.name FROM Films f " +
-            "JOIN Rating r ON f.rating_id = r.rating_id";
-
     private static final String ADD_LIKE_QUERY = "INSERT INTO Likes (film_id, user_id) VALUES (?, ?)";
     private static final String REMOVE_LIKE_QUERY = "DELETE FROM Likes WHERE film_id = ? AND user_id = ?";
-    private static final String FIND_LIKE_BY_FILM_QUERY = "SELECT user_id FROM Likes WHERE film_id = ?";
-    private static final String FIND_ALL_LIKES = "SELECT film_id, user_id FROM Likes";
+    private static final String FIND_ALL_LIKES = "SELECT film_id, user_id FROM Likes ORDER BY film_id, user_id";
+    private static final String FIND_LIKES_BY_FILMS_QUERY = "SELECT film_id, user_id FROM Likes WHERE film_id IN (%s) " +
+            "ORDER BY film_id, user_id";
+    private static final String COUNT_LIKES_BY_FILM = "SELECT film_id, likes_count FROM Films";
+    private static final String MERGE_LIKES_QUERY = "SELECT film_id, user_id FROM OLD TABLE (" +
+            "MERGE INTO Likes (film_id, user_id) KEY (film_id, user_id) VALUES %s)";
+    private static final String ADD_LIKES_COUNT_QUERY = "UPDATE Films SET likes_count = likes_count + ? " +
+            "WHERE film_id = ?";
+    private static final String INCREMENT_LIKES_COUNT_QUERY = "UPDATE Films SET likes_count = likes_count + 1 " +
+            "WHERE film_id = ?";
+    private static final String DECREMENT_LIKES_COUNT_QUERY = "UPDATE Films SET likes_count = likes_count - 1 " +
+            "WHERE film_id = ?";
+    private static final String REPAIR_LIKES_COUNT_QUERY = "UPDATE Films f " +
+            "SET likes_count = (SELECT COUNT(*) FROM Likes l WHERE l.film_id = f.film_id) " +
+            "WHERE likes_count <> (SELECT COUNT(*) FROM Likes l WHERE l.film_id = f.film_id)";
 
     private static final String CLEAR_GENRE_BY_FILM_QUERY = "DELETE FROM Films_Genres WHERE film_id = ?";
     private static final String ADD_GENRE_BY_FILM_QUERY = "INSERT INTO Films_Genres (film_id, genre_id) VALUES (?, ?)";
-    private static final String FIND_GENRE_BY_FILM_QUERY = "SELECT g.* FROM Genres g " +
-            "JOIN Films_Genres fg ON g.genre_id = fg.genre_id WHERE fg.film_id = ?";
-    private static final String FIND_ALL_GENRE_QUERY = "SELECT g.*, fg.film_id FROM Genres g " +
-            "JOIN Films_Genres fg ON g.genre_id = fg.genre_id";
+    private static final String FIND_ALL_GENRE_QUERY = "SELECT film_id, genre_id FROM Films_Genres";
+    private static final String FIND_GENRES_BY_FILMS_QUERY = "SELECT film_id, genre_id FROM Films_Genres " +
+            "WHERE film_id IN (%s)";
 
     @Override
     public Collection<Film> findAll() {
         log.info("Поиск всех фильмов");
+        ParallelHydration.Task<Map<Integer, IntSet>> likes = hydration.fork(this::findAllLikes);
+        ParallelHydration.Task<Map<Integer, Set<Genre>>> genres = hydration.fork(this::findAllGenresByFilms);
         Collection<Film> films = jdbc.query(FIND_ALL_QUERY, mapper);
 
-        Map<Integer, Set<Integer>> likesByFilm = findAllLikes();
-        Map<Integer, Set<Genre>> genresByFilmS = findAllGenresByFilms();
-        Map<Integer, Rating> ratingByFilm = findAllRatingsByFilm();
+        Map<Integer, IntSet> likesByFilm = likes.join();
+        Map<Integer, Set<Genre>> genresByFilmS = genres.join();
 
         for (Film film : films) {
             film.setGenres(genresByFilmS.getOrDefault(film.getId(), Set.of()));
-            film.setLikes(likesByFilm.getOrDefault(film.getId(), Set.of()));
-            film.setMpa(ratingByFilm.getOrDefault(film.getId(), null));
+            film.setLikes(likesByFilm.getOrDefault(film.getId(), new IntSet()));
         }
         return films;
     }
 
+    @Override
+    public List<Film> findFilms(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        log.info("Поиск фильмов по списку id, количество: {}", ids.size());
+        Map<Integer, Film> filmsById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            fillFilms(jdbc.query(withInList(FIND_BY_IDS_QUERY, chunk.size()), mapper, chunk.toArray()))
+                    .forEach(film -> filmsById.put(film.getId(), film));
+        }
+
+        return ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Film> findPage(int after, int limit) {
+        log.info("Поиск страницы фильмов после id: {}, размер: {}", after, limit);
+        return fillFilms(jdbc.query(FIND_PAGE_QUERY, mapper, after, limit));
+    }
+
+    @Override
+    public List<Film> findPopular(int count) {
+        log.info("Поиск {} популярных фильмов", count);
+        return findFilms(jdbc.queryForList(FIND_POPULAR_IDS_QUERY, Integer.class, count));
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> action) {
+        log.info("Потоковая выгрузка всех фильмов");
+        jdbc.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement filmsPs = prepareStreaming(con, STREAM_FILMS_QUERY);
+                 PreparedStatement likesPs = prepareStreaming(con, STREAM_LIKES_QUERY);
+                 PreparedStatement genresPs = prepareStreaming(con, STREAM_GENRES_QUERY);
+                 ResultSet films = filmsPs.executeQuery();
+                 ResultSet likes = likesPs.executeQuery();
+                 ResultSet genres = genresPs.executeQuery()) {
+                boolean hasLike = likes.next();
+                boolean hasGenre = genres.next();
+                int rowNum = 0;
+                while (films.next()) {
+                    Film film = mapper.mapRow(films, rowNum++);
+                    int filmId = film.getId();
+
+                    IntSet filmLikes = new IntSet();
+                    while (hasLike && likes.getInt("film_id") <= filmId) {
+                        if (likes.getInt("film_id") == filmId) {
+                            filmLikes.add(likes.getInt("user_id"));
+                        }
+                        hasLike = likes.next();
+                    }
+                    Set<Genre> filmGenres = new HashSet<>();
+                    while (hasGenre && genres.getInt("film_id") <= filmId) {
+                        if (genres.getInt("film_id") == filmId) {
+                            filmGenres.add(referenceData.findGenre(genres.getInt("genre_id")));
+                        }
+                        hasGenre = genres.next();
+                    }
+
+                    film.setLikes(filmLikes);
+                    film.setGenres(filmGenres);
+                    action.accept(film);
+                }
+            }
+            return null;
+        });
+    }
+
     @Override
     public Film findFilm(int id) {
         try {
             log.info("Поиск фильма с id: {}", id);
-            Film film = jdbc.queryForObject(FIND_BY_ID_QUERY, mapper, id);
-            film.setLikes(findLikeFilm(id));
-            if (film.getMpa() != null && film.getMpa().getId() != null) {
-                film.setMpa(findRatingsFilm(film.getMpa().getId()));
-            }
-            film.setGenres(findGenresFilm(film.getId()));
-            return film;
+            return jdbc.queryForObject(FIND_BY_ID_QUERY, this::mapFilmWithDetails, id);
         } catch (DataAccessException e) {
             throw new NotFoundException("По указанному id (" + id + ") фильм не обнаружен");
         }
@@ -95,15 +194,7 @@ public class FilmDbStorage implements FilmStorage {
         try {
             jdbc.update(con -> {
                 PreparedStatement ps = con.prepareStatement(CREATE_QUERY, Statement.RETURN_GENERATED_KEYS);
-                ps.setString(1, film.getName());
-                ps.setString(2, film.getDescription());
-                ps.setDate(3, Date.valueOf(film.getReleaseDate()));
-                ps.setInt(4, film.getDuration());
-                if (film.getMpa() != null && film.getMpa().getId() != null) {
-                    ps.setInt(5, film.getMpa().getId());
-                } else {
-                    ps.setNull(5, Types.INTEGER);
-                }
+                setFilmValues(ps, film);
                 return ps;
             }, keyHolder);
         } catch (DataIntegrityViolationException e) {
@@ -124,6 +215,53 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    /**
+     * Пакетная вставка в одной транзакции: одна пачка INSERT в Films с возвратом ключей
+     * и одна пачка в Films_Genres. Фильмам проставляются id в порядке списка.
+     */
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        log.info("Пакетное добавление фильмов, количество: {}", films.size());
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbc.batchUpdate(con -> con.prepareStatement(CREATE_QUERY, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setFilmValues(ps, films.get(i));
+                        }
+
+                        public int getBatchSize() {
+                            return films.size();
+                        }
+                    }, keyHolder);
+        } catch (DataIntegrityViolationException e) {
+            throw new ValidationException("Ошибка валидации при сохранении в БД");
+        }
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != films.size()) {
+            throw new DataConflictException("Не удалось сохранить данные");
+        }
+        List<FilmGenre> filmGenres = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).intValue());
+            if (film.getGenres() != null) {
+                film.getGenres().forEach(genre -> filmGenres.add(new FilmGenre(film.getId(), genre.getId())));
+            }
+        }
+        jdbc.batchUpdate(ADD_GENRE_BY_FILM_QUERY, filmGenres, BATCH_SIZE, (ps, filmGenre) -> {
+            ps.setInt(1, filmGenre.filmId());
+            ps.setInt(2, filmGenre.genreId());
+        });
+        log.info("Добавлено фильмов: {}, связей с жанрами: {}", films.size(), filmGenres.size());
+        return films;
+    }
+
     @Override
     public Film update(Film newFilm) {
         log.info("Обновляем фильм");
@@ -150,94 +288,244 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    @PostConstruct
+    public void repairLikesCount() {
+        int repaired = jdbc.update(REPAIR_LIKES_COUNT_QUERY);
+        if (repaired > 0) {
+            log.warn("Счетчик лайков пересчитан для фильмов: {}", repaired);
+        }
+    }
+
+    /**
+     * Повторный лайк ничего не меняет и возвращает false - так же, как в памяти и при отложенной записи.
+     */
     @Override
-    public void addLike(int id, int userId) {
+    @Transactional
+    public boolean addLike(int id, int userId) {
         try {
             jdbc.update(ADD_LIKE_QUERY, id, userId);
-            log.info("Пользователь (id): {}, поставил лайк фильму (id): {}", userId, id);
-        } catch (DataAccessException e) {
-            throw new DataConflictException("Лайк уже поставлен");
+        } catch (DuplicateKeyException e) {
+            return false;
         }
+        jdbc.update(INCREMENT_LIKES_COUNT_QUERY, id);
+        log.info("Пользователь (id): {}, поставил лайк фильму (id): {}", userId, id);
+        return true;
     }
 
     @Override
-    public void removeLike(int id, int userId) {
-        jdbc.update(REMOVE_LIKE_QUERY, id, userId);
+    @Transactional
+    public boolean removeLike(int id, int userId) {
+        int rowsDeleted = jdbc.update(REMOVE_LIKE_QUERY, id, userId);
+        if (rowsDeleted == 0) {
+            return false;
+        }
+        jdbc.update(DECREMENT_LIKES_COUNT_QUERY, id);
         log.info("Пользователь (id): {}, убрал лайк фильму (id): {}", userId, id);
+        return true;
+    }
+
+    /**
+     * MERGE ... KEY не падает на лайке, вставленном параллельно, но H2 возвращает счетчик 1 и для
+     * существующей строки, поэтому уже существовавшие строки берутся из OLD TABLE того же запроса.
+     */
+    @Override
+    @Transactional
+    public List<Like> addLikes(List<Like> likes) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
+        log.info("Пакетное добавление лайков, количество: {}", likes.size());
+        List<Like> distinct = likes.stream().distinct().toList();
+        Set<Like> existing = new HashSet<>();
+        for (int from = 0; from < distinct.size(); from += BATCH_SIZE) {
+            List<Like> chunk = distinct.subList(from, Math.min(from + BATCH_SIZE, distinct.size()));
+            String pairs = String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)"));
+            Object[] args = chunk.stream()
+                    .flatMap(like -> Stream.of(like.getFilmId(), like.getUserId()))
+                    .toArray();
+            existing.addAll(jdbc.query(String.format(MERGE_LIKES_QUERY, pairs),
+                    (rs, rowNum) -> new Like(rs.getInt("film_id"), rs.getInt("user_id")), args));
+        }
+        List<Like> created = distinct.stream()
+                .filter(like -> !existing.contains(like))
+                .toList();
+
+        Map<Integer, Integer> addedByFilm = new HashMap<>();
+        created.forEach(like -> addedByFilm.merge(like.getFilmId(), 1, Integer::sum));
+        jdbc.batchUpdate(ADD_LIKES_COUNT_QUERY, List.copyOf(addedByFilm.entrySet()), BATCH_SIZE, (ps, entry) -> {
+            ps.setInt(1, entry.getValue());
+            ps.setInt(2, entry.getKey());
+        });
+        log.info("Добавлено лайков: {}", created.size());
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public List<Like> removeLikes(List<Like> likes) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
+        log.info("Пакетное удаление лайков, количество: {}", likes.size());
+        List<Like> distinct = likes.stream().distinct().toList();
+        int[][] counts = jdbc.batchUpdate(REMOVE_LIKE_QUERY, distinct, BATCH_SIZE, (ps, like) -> {
+            ps.setInt(1, like.getFilmId());
+            ps.setInt(2, like.getUserId());
+        });
+
+        List<Like> removed = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    removed.add(distinct.get(index));
+                }
+                index++;
+            }
+        }
+
+        Map<Integer, Integer> removedByFilm = new HashMap<>();
+        removed.forEach(like -> removedByFilm.merge(like.getFilmId(), -1, Integer::sum));
+        jdbc.batchUpdate(ADD_LIKES_COUNT_QUERY, List.copyOf(removedByFilm.entrySet()), BATCH_SIZE, (ps, entry) -> {
+            ps.setInt(1, entry.getValue());
+            ps.setInt(2, entry.getKey());
+        });
+        log.info("Удалено лайков: {}", removed.size());
+        return removed;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        log.info("Проверка существования фильмов, количество: {}", ids.size());
+        return new HashSet<>(jdbc.queryForList(withInList(FIND_EXISTING_IDS_QUERY, ids.size()),
+                Integer.class, ids.toArray()));
+    }
+
+    @Override
+    public void forEachId(IntConsumer action) {
+        log.info("Перебор id всех фильмов");
+        jdbc.query(FIND_ALL_IDS_QUERY, (RowCallbackHandler) rs -> action.accept(rs.getInt("film_id")));
+    }
+
+    @Override
+    public void forEachLike(IntPairConsumer action) {
+        log.info("Перебор всех лайков");
+        jdbc.query(FIND_ALL_LIKES, (RowCallbackHandler) rs -> action.accept(rs.getInt("film_id"), rs.getInt("user_id")));
+    }
+
+    @Override
+    public Map<Integer, Integer> countLikes() {
+        log.info("Подсчет лайков для каждого фильма");
+        Map<Integer, Integer> map = new HashMap<>();
+        jdbc.query(COUNT_LIKES_BY_FILM, (RowCallbackHandler) rs ->
+                map.put(rs.getInt("film_id"), rs.getInt("likes_count")));
+        return map;
     }
 
     private void setFilmGenres(Integer filmId, Set<Genre> genres) {
         jdbc.update(CLEAR_GENRE_BY_FILM_QUERY, filmId);
-        jdbc.batchUpdate(ADD_GENRE_BY_FILM_QUERY, new BatchPreparedStatementSetter() {
-            public void setValues(PreparedStatement ps, int i) throws SQLException {
-                Genre genre = genres.stream().toList().get(i);
+        if (genres != null && !genres.isEmpty()) {
+            jdbc.batchUpdate(ADD_GENRE_BY_FILM_QUERY, List.copyOf(genres), BATCH_SIZE, (ps, genre) -> {
                 ps.setInt(1, filmId);
                 ps.setInt(2, genre.getId());
-            }
-
-            public int getBatchSize() {
-                return genres.size();
-            }
-        });
+            });
+        }
         log.info("Обновлен список жанров фильма (id): {}", filmId);
     }
 
+    private static void setFilmValues(PreparedStatement ps, Film film) throws SQLException {
+        ps.setString(1, film.getName());
+        ps.setString(2, film.getDescription());
+        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+        ps.setInt(4, film.getDuration());
+        if (film.getMpa() != null && film.getMpa().getId() != null) {
+            ps.setInt(5, film.getMpa().getId());
+        } else {
+            ps.setNull(5, Types.INTEGER);
+        }
+    }
+
     private Map<Integer, Set<Genre>> findAllGenresByFilms() {
         log.info("Поиск жанров для каждого фильма");
-        return jdbc.query(FIND_ALL_GENRE_QUERY, rs -> {
-            Map<Integer, Set<Genre>> map = new HashMap<>();
-            while (rs.next()) {
-                int filmId = rs.getInt("film_id");
-                Genre genre = new Genre();
-                genre.setId(rs.getInt("genre_id"));
-                genre.setName(rs.getString("name"));
-                map.computeIfAbsent(filmId, k -> new HashSet<>()).add(genre);
-            }
-            return map;
-        });
+        Map<Integer, Set<Genre>> map = new HashMap<>();
+        jdbc.query(FIND_ALL_GENRE_QUERY, (RowCallbackHandler) rs -> map
+                .computeIfAbsent(rs.getInt("film_id"), k -> new HashSet<>())
+                .add(referenceData.findGenre(rs.getInt("genre_id"))));
+        return map;
+    }
+
+    private List<Film> fillFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Object[] ids = films.stream().map(Film::getId).toArray();
+        ParallelHydration.Task<Map<Integer, IntSet>> likes = hydration.fork(() -> findLikesByFilms(ids));
+        Map<Integer, Set<Genre>> genresByFilm = findGenresByFilms(ids);
+        Map<Integer, IntSet> likesByFilm = likes.join();
+
+        for (Film film : films) {
+            film.setGenres(genresByFilm.getOrDefault(film.getId(), Set.of()));
+            film.setLikes(likesByFilm.getOrDefault(film.getId(), new IntSet()));
+        }
+        return films;
+    }
+
+    private Film mapFilmWithDetails(ResultSet rs, int rowNum) throws SQLException {
+        Film film = mapper.mapRow(rs, rowNum);
+
+        Set<Genre> genres = new HashSet<>();
+        for (Object genreId : (Object[]) rs.getArray("genre_ids").getArray()) {
+            genres.add(referenceData.findGenre((Integer) genreId));
+        }
+        film.setGenres(genres);
+
+        Object[] likeIds = (Object[]) rs.getArray("like_ids").getArray();
+        IntSet likes = new IntSet(likeIds.length);
+        for (Object userId : likeIds) {
+            likes.add(((Number) userId).intValue());
+        }
+        film.setLikes(likes);
+        return film;
     }
 
-    private Set<Integer> findLikeFilm(int id) {
-        log.info("Поиск лайков фильма (id): {}", id);
-        return new HashSet<>(jdbc.query(FIND_LIKE_BY_FILM_QUERY,
-                (rs, rowNum) -> rs.getInt("user_id"), id));
+    private Map<Integer, Set<Genre>> findGenresByFilms(Object[] ids) {
+        Map<Integer, Set<Genre>> map = new HashMap<>();
+        jdbc.query(withInList(FIND_GENRES_BY_FILMS_QUERY, ids.length), (RowCallbackHandler) rs -> map
+                .computeIfAbsent(rs.getInt("film_id"), k -> new HashSet<>())
+                .add(referenceData.findGenre(rs.getInt("genre_id"))), ids);
+        return map;
     }
 
-    private Map<Integer, Set<Integer>> findAllLikes() {
+    private Map<Integer, IntSet> findAllLikes() {
         log.info("Поиск лайков для каждого фильма");
-        return jdbc.query(FIND_ALL_LIKES, rs -> {
-            Map<Integer, Set<Integer>> map = new HashMap<>();
-            while (rs.next()) {
-                int filmId = rs.getInt("film_id");
-                int userId = rs.getInt("user_id");
-                map.computeIfAbsent(filmId, k -> new HashSet<>()).add(userId);
-            }
-            return map;
-        });
+        Map<Integer, IntSet> map = new HashMap<>();
+        jdbc.query(FIND_ALL_LIKES, (RowCallbackHandler) rs -> map
+                .computeIfAbsent(rs.getInt("film_id"), k -> new IntSet())
+                .add(rs.getInt("user_id")));
+        return map;
     }
 
-    private Rating findRatingsFilm(int id) {
-        log.info("Отправляем запрос рейтинга для фильма");
-        return rStorage.findRating(id);
+    private Map<Integer, IntSet> findLikesByFilms(Object[] ids) {
+        Map<Integer, IntSet> map = new HashMap<>();
+        jdbc.query(withInList(FIND_LIKES_BY_FILMS_QUERY, ids.length), (RowCallbackHandler) rs -> map
+                .computeIfAbsent(rs.getInt("film_id"), k -> new IntSet())
+                .add(rs.getInt("user_id")), ids);
+        return map;
     }
 
-    private Map<Integer, Rating> findAllRatingsByFilm() {
-        log.info("Поиск рейтинга для всех фильмов");
-        return jdbc.query(FIND_ALL_RATINGS_BY_FILMS, rs -> {
-            Map<Integer, Rating> map = new HashMap<>();
-            while (rs.next()) {
-                int filmId = rs.getInt("film_id");
-                Rating rating = new Rating();
-                rating.setId(rs.getInt("rating_id"));
-                rating.setName(rs.getString("name"));
-                map.put(filmId, rating);
-            }
-            return map;
-        });
+    private static PreparedStatement prepareStreaming(Connection con, String query) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(STREAM_FETCH_SIZE);
+        return ps;
+    }
+
+    private static String withInList(String query, int size) {
+        return String.format(query, String.join(",", Collections.nCopies(size, "?")));
     }
 
-    private Set<Genre> findGenresFilm(int id) {
-        log.info("проводим поиск жанров для фильма");
-        return new HashSet<>(jdbc.query(FIND_GENRE_BY_FILM_QUERY, new GenreRowMapper(), id));
+    private record FilmGenre(int filmId, int genreId) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,310 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.metrics.RequestStatistics;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JdbcTemplate с метриками по именованным запросам (см. StatementNames): таймер filmorate.jdbc.statement
+ * и число прочитанных или измененных строк filmorate.jdbc.rows. Переопределены публичные точки входа,
+ * через которые проходят все вызовы query/update/batchUpdate; запросы внутри execute(ConnectionCallback)
+ * не учитываются. Строки считаются для RowMapper и RowCallbackHandler, результат произвольного
+ * ResultSetExtractor не разбирается. Счетчики метрик создаются один раз на запрос и кэшируются.
+ */
+@Component
+public class InstrumentedJdbcTemplate extends JdbcTemplate {
+    private final MeterRegistry registry;
+    private final StatementNames names;
+    private final Map<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    public InstrumentedJdbcTemplate(DataSource dataSource, JdbcProperties properties,
+                                    MeterRegistry registry, StatementNames names) {
+        super(dataSource);
+        JdbcProperties.Template template = properties.getTemplate();
+        setFetchSize(template.getFetchSize());
+        setMaxRows(template.getMaxRows());
+        if (template.getQueryTimeout() != null) {
+            setQueryTimeout((int) template.getQueryTimeout().getSeconds());
+        }
+        this.registry = registry;
+        this.names = names;
+    }
+
+    @Override
+    public <T> T query(String sql, ResultSetExtractor<T> rse) throws DataAccessException {
+        long start = System.nanoTime();
+        boolean success = false;
+        long rows = -1;
+        try {
+            T result = super.query(sql, rse);
+            rows = rowsOf(rse, result);
+            success = true;
+            return result;
+        } finally {
+            record(sql, start, success, rows);
+        }
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss,
+                       ResultSetExtractor<T> rse) throws DataAccessException {
+        long start = System.nanoTime();
+        SqlProvider sql = sqlProvider(psc);
+        boolean success = false;
+        long rows = -1;
+        try {
+            T result = super.query((PreparedStatementCreator) sql, pss, rse);
+            rows = rowsOf(rse, result);
+            success = true;
+            return result;
+        } finally {
+            record(sql.getSql(), start, success, rows);
+        }
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler rch) throws DataAccessException {
+        query(sql, new RowCountingExtractor(rch));
+    }
+
+    @Override
+    public void query(String sql, PreparedStatementSetter pss, RowCallbackHandler rch) throws DataAccessException {
+        query(sql, pss, new RowCountingExtractor(rch));
+    }
+
+    @Override
+    public void query(PreparedStatementCreator psc, RowCallbackHandler rch) throws DataAccessException {
+        query(psc, null, new RowCountingExtractor(rch));
+    }
+
+    @Override
+    public int update(String sql) throws DataAccessException {
+        long start = System.nanoTime();
+        boolean success = false;
+        long rows = -1;
+        try {
+            int updated = super.update(sql);
+            rows = updated;
+            success = true;
+            return updated;
+        } finally {
+            record(sql, start, success, rows);
+        }
+    }
+
+    @Override
+    protected int update(PreparedStatementCreator psc, PreparedStatementSetter pss) throws DataAccessException {
+        long start = System.nanoTime();
+        SqlProvider sql = sqlProvider(psc);
+        boolean success = false;
+        long rows = -1;
+        try {
+            int updated = super.update((PreparedStatementCreator) sql, pss);
+            rows = updated;
+            success = true;
+            return updated;
+        } finally {
+            record(sql.getSql(), start, success, rows);
+        }
+    }
+
+    @Override
+    public int update(PreparedStatementCreator psc, KeyHolder generatedKeyHolder) throws DataAccessException {
+        long start = System.nanoTime();
+        SqlProvider sql = sqlProvider(psc);
+        boolean success = false;
+        long rows = -1;
+        try {
+            int updated = super.update((PreparedStatementCreator) sql, generatedKeyHolder);
+            rows = updated;
+            success = true;
+            return updated;
+        } finally {
+            record(sql.getSql(), start, success, rows);
+        }
+    }
+
+    @Override
+    public int[] batchUpdate(String sql, BatchPreparedStatementSetter pss) throws DataAccessException {
+        long start = System.nanoTime();
+        boolean success = false;
+        long rows = -1;
+        try {
+            int[] counts = super.batchUpdate(sql, pss);
+            rows = sum(counts);
+            success = true;
+            return counts;
+        } finally {
+            record(sql, start, success, rows);
+        }
+    }
+
+    @Override
+    public int[] batchUpdate(PreparedStatementCreator psc, BatchPreparedStatementSetter pss,
+                             KeyHolder generatedKeyHolder) throws DataAccessException {
+        long start = System.nanoTime();
+        SqlProvider sql = sqlProvider(psc);
+        boolean success = false;
+        long rows = -1;
+        try {
+            int[] counts = super.batchUpdate((PreparedStatementCreator) sql, pss, generatedKeyHolder);
+            rows = sum(counts);
+            success = true;
+            return counts;
+        } finally {
+            record(sql.getSql(), start, success, rows);
+        }
+    }
+
+    @Override
+    public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                   ParameterizedPreparedStatementSetter<T> pss) throws DataAccessException {
+        long start = System.nanoTime();
+        boolean success = false;
+        long rows = -1;
+        try {
+            int[][] counts = super.batchUpdate(sql, batchArgs, batchSize, pss);
+            rows = 0;
+            for (int[] batch : counts) {
+                rows += sum(batch);
+            }
+            success = true;
+            return counts;
+        } finally {
+            record(sql, start, success, rows);
+        }
+    }
+
+    private void record(String sql, long start, boolean success, long rows) {
+        long elapsed = System.nanoTime() - start;
+        StatementMeters statement = meters.computeIfAbsent(names.nameOf(sql), this::register);
+        (success ? statement.success() : statement.error()).record(elapsed, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            statement.rows().record(rows);
+        }
+        RequestStatistics statistics = RequestStatistics.current();
+        if (statistics != null) {
+            statistics.recordStatement(Math.max(rows, 0));
+        }
+    }
+
+    private StatementMeters register(String name) {
+        return new StatementMeters(
+                timer(name, "success"),
+                timer(name, "error"),
+                DistributionSummary.builder("filmorate.jdbc.rows")
+                        .description("Строк прочитано или изменено одним SQL-запросом")
+                        .baseUnit("rows")
+                        .tag("statement", name)
+                        .register(registry));
+    }
+
+    private Timer timer(String name, String outcome) {
+        return Timer.builder("filmorate.jdbc.statement")
+                .description("Время выполнения SQL-запроса вместе с разбором результата")
+                .tag("statement", name)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static long rowsOf(ResultSetExtractor<?> rse, Object result) {
+        if (rse instanceof RowCountingExtractor && result instanceof Integer rows) {
+            return rows;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        return -1;
+    }
+
+    private static long sum(int[] counts) {
+        long sum = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                sum += count;
+            }
+        }
+        return sum;
+    }
+
+    private static SqlProvider sqlProvider(PreparedStatementCreator psc) {
+        return psc instanceof SqlProvider provider ? provider : new SqlCapturingCreator(psc);
+    }
+
+    private record StatementMeters(Timer success, Timer error, DistributionSummary rows) {
+    }
+
+    /**
+     * Обходит ResultSet сам, чтобы посчитать строки, переданные RowCallbackHandler.
+     */
+    private record RowCountingExtractor(RowCallbackHandler handler) implements ResultSetExtractor<Integer> {
+        @Override
+        public Integer extractData(ResultSet rs) throws SQLException {
+            int rows = 0;
+            while (rs.next()) {
+                handler.processRow(rs);
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Узнает текст запроса у PreparedStatementCreator, не реализующего SqlProvider (обычно это лямбда):
+     * соединение, переданное ему, перехватывает вызов prepareStatement.
+     */
+    private static final class SqlCapturingCreator implements PreparedStatementCreator, SqlProvider {
+        private final PreparedStatementCreator delegate;
+        private String sql;
+
+        private SqlCapturingCreator(PreparedStatementCreator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+            Connection capturing = (Connection) Proxy.newProxyInstance(InstrumentedJdbcTemplate.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if ("prepareStatement".equals(method.getName()) && args != null && args[0] instanceof String s) {
+                            sql = s;
+                        }
+                        try {
+                            return method.invoke(con, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+            return delegate.createPreparedStatement(capturing);
+        }
+
+        @Override
+        public String getSql() {
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.DataConflictException;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отложенная запись лайков. События копятся в памяти, схлопываются (лайк и последующий дизлайк
+ * взаимно уничтожаются) и пишутся в БД одной транзакцией по размеру пачки или по таймеру.
+ * Каждое событие до подтверждения дописывается в локальный журнал и сбрасывается на диск (fsync);
+ * одновременные запросы делят один fsync (групповая фиксация); если fsync не удался, в журнал
+ * дописывается обратное событие. При старте журнал проигрывается, после успешного сброса -
+ * перезаписывается оставшимися событиями: новый файл пишется без блокировки чтения, а подменяется
+ * под ней вместе с событиями, дописанными за время перезаписи.
+ * Решение о том, меняет ли событие состояние, принимает вызывающий код (по матрице лайков),
+ * поэтому журнал и пачка могут безопасно применяться повторно.
+ * <p>
+ * max-pending - предел очереди: пока БД недоступна и пачки возвращаются в очередь, новые события
+ * сверх предела отклоняются с ServiceUnavailableException (503) и не попадают в журнал.
+ * События, отменяющие ожидающее (дизлайк после лайка), принимаются всегда - они очередь уменьшают.
+ * Блокировки - ReentrantLock, а не synchronized: запись в журнал под монитором закрепляла бы
+ * виртуальный поток запроса на несущем потоке.
+ */
+@Component
+@Slf4j
+public class LikeWriteBuffer {
+    private static final int RECORD_SIZE = 9;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 0;
+
+    private final FilmStorage filmStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int maxPending;
+    private final Path journalPath;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private Map<Integer, Map<Integer, Boolean>> pending = new HashMap<>();
+    private Map<Integer, Map<Integer, Boolean>> flushing = Map.of();
+    private int pendingSize;
+    private long appended;
+    private volatile long synced;
+    private FileChannel journal;
+    private ScheduledExecutorService scheduler;
+
+    public LikeWriteBuffer(FilmStorage filmStorage,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                           @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                           @Value("${filmorate.likes.write-behind.max-pending:10000}") int maxPending,
+                           @Value("${filmorate.likes.write-behind.journal:./db/likes.journal}") String journalPath) {
+        this.filmStorage = filmStorage;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxPending = maxPending;
+        this.journalPath = Path.of(journalPath);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        replayJournal();
+        journal = openJournal(journalPath);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "likes-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись лайков включена, журнал: {}", journalPath);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        scheduler.shutdown();
+        flush();
+        journal.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void addLike(int filmId, int userId) {
+        append(filmId, userId, true);
+    }
+
+    public void removeLike(int filmId, int userId) {
+        append(filmId, userId, false);
+    }
+
+    public int pendingSize() {
+        lock.lock();
+        try {
+            return pendingSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Снимок несохраненных событий. Снимок нужно брать до чтения из БД: тогда событие, успевшее
+     * записаться между снимком и чтением, просто применится повторно.
+     */
+    public Overlay snapshot() {
+        if (!enabled) {
+            return Overlay.EMPTY;
+        }
+        lock.lock();
+        try {
+            if (pendingSize == 0 && flushing.isEmpty()) {
+                return Overlay.EMPTY;
+            }
+            Map<Integer, Map<Integer, Boolean>> changes = new HashMap<>();
+            flushing.forEach((filmId, users) -> changes.put(filmId, new HashMap<>(users)));
+            pending.forEach((filmId, users) -> changes.computeIfAbsent(filmId, k -> new HashMap<>()).putAll(users));
+            return new Overlay(changes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Integer, Map<Integer, Boolean>> batch;
+            lock.lock();
+            try {
+                if (pendingSize == 0) {
+                    return;
+                }
+                batch = pending;
+                flushing = batch;
+                pending = new HashMap<>();
+                pendingSize = 0;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                lock.lock();
+                try {
+                    batch.forEach((filmId, users) -> users.forEach((userId, added) -> {
+                        Map<Integer, Boolean> filmPending = pending.computeIfAbsent(filmId, k -> new HashMap<>());
+                        if (filmPending.putIfAbsent(userId, added) == null) {
+                            pendingSize++;
+                        }
+                    }));
+                    flushing = Map.of();
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+            syncLock.lock();
+            try {
+                rewriteJournal();
+            } finally {
+                syncLock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось сбросить отложенные лайки, повтор при следующем сбросе", e);
+        }
+    }
+
+    private void append(int filmId, int userId, boolean added) {
+        long sequence;
+        boolean changed;
+        int size;
+        lock.lock();
+        try {
+            Map<Integer, Boolean> filmPending = pending.get(filmId);
+            if (pendingSize >= maxPending && (filmPending == null || !filmPending.containsKey(userId))) {
+                throw new ServiceUnavailableException("Очередь отложенных лайков переполнена (" + pendingSize
+                        + "), повторите запрос позже");
+            }
+            try {
+                writeRecord(filmId, userId, added);
+            } catch (IOException e) {
+                throw new DataConflictException("Не удалось записать журнал лайков");
+            }
+            sequence = ++appended;
+            changed = applyPending(filmId, userId, added);
+            size = pendingSize;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            sync(sequence);
+        } catch (RuntimeException e) {
+            if (changed) {
+                revert(filmId, userId, added);
+            }
+            throw e;
+        }
+        if (size >= batchSize) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Отмена события, которое не удалось сохранить на диск: сама запись могла туда попасть (ее
+     * покроет следующий fsync), поэтому за ней пишется обратная - при проигрывании побеждает последняя.
+     * Решение вызывающего о смене состояния гарантирует, что обратное событие возвращает прежнее.
+     */
+    private void revert(int filmId, int userId, boolean added) {
+        lock.lock();
+        try {
+            applyPending(filmId, userId, !added);
+            writeRecord(filmId, userId, !added);
+            ++appended;
+        } catch (IOException e) {
+            log.error("Не удалось записать в журнал отмену лайка фильму (id): {}, от пользователя (id): {}",
+                    filmId, userId, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeRecord(int filmId, int userId, boolean added) throws IOException {
+        record.clear();
+        record.put(added ? ADD : REMOVE).putInt(filmId).putInt(userId).flip();
+        while (record.hasRemaining()) {
+            journal.write(record);
+        }
+    }
+
+    /**
+     * Схлопывает событие с ожидающими; false, если событие ничего не изменило (повтор).
+     * Повторное применение события с обратным знаком отменяет изменение.
+     */
+    private boolean applyPending(int filmId, int userId, boolean added) {
+        Map<Integer, Boolean> filmPending = pending.computeIfAbsent(filmId, k -> new HashMap<>());
+        Boolean previous = filmPending.get(userId);
+        if (previous == null) {
+            filmPending.put(userId, added);
+            pendingSize++;
+            return true;
+        }
+        if (previous != added) {
+            filmPending.remove(userId);
+            pendingSize--;
+            if (filmPending.isEmpty()) {
+                pending.remove(filmId);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Групповая фиксация: один fsync покрывает все записи, дописанные к моменту его начала,
+     * поэтому ждущие за syncLock потоки обычно находят свою запись уже на диске.
+     */
+    private void sync(long sequence) {
+        if (synced >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= sequence) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            lock.lock();
+            try {
+                target = appended;
+                channel = journal;
+            } finally {
+                lock.unlock();
+            }
+            channel.force(false);
+            synced = target;
+        } catch (IOException e) {
+            throw new DataConflictException("Не удалось сохранить журнал лайков на диск");
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void write(Map<Integer, Map<Integer, Boolean>> batch) {
+        List<Like> added = new ArrayList<>();
+        List<Like> removed = new ArrayList<>();
+        batch.forEach((filmId, users) -> users.forEach((userId, isAdded) ->
+                (isAdded ? added : removed).add(new Like(filmId, userId))));
+        store(added, removed);
+        log.info("Сброшены отложенные лайки: добавлено {}, удалено {}", added.size(), removed.size());
+    }
+
+    private void store(List<Like> added, List<Like> removed) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < added.size(); from += batchSize) {
+                filmStorage.addLikes(added.subList(from, Math.min(from + batchSize, added.size())));
+            }
+            for (int from = 0; from < removed.size(); from += batchSize) {
+                filmStorage.removeLikes(removed.subList(from, Math.min(from + batchSize, removed.size())));
+            }
+        });
+    }
+
+    /**
+     * Проигрывание журнала при старте. Если пачка нарушает ссылочную целостность (фильм или
+     * пользователь удалены, например после восстановления снимка), события применяются по одному,
+     * неприменимые пропускаются, а журнал сохраняется рядом с суффиксом .failed для разбора.
+     */
+    private void replayJournal() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        Map<Like, Boolean> events = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    boolean added = buffer.get() == ADD;
+                    events.put(new Like(buffer.getInt(), buffer.getInt()), added);
+                }
+                buffer.compact();
+            }
+        }
+        if (!events.isEmpty()) {
+            log.info("Проигрываем журнал лайков, событий: {}", events.size());
+            Map<Integer, Map<Integer, Boolean>> batch = new HashMap<>();
+            events.forEach((like, added) ->
+                    batch.computeIfAbsent(like.getFilmId(), k -> new HashMap<>()).put(like.getUserId(), added));
+            try {
+                write(batch);
+            } catch (DataIntegrityViolationException e) {
+                int skipped = writeEach(events);
+                Path failed = journalPath.resolveSibling(journalPath.getFileName() + ".failed");
+                Files.move(journalPath, failed, StandardCopyOption.REPLACE_EXISTING);
+                log.warn("Журнал лайков проигран частично: пропущено событий {} из {}, журнал сохранен в {}",
+                        skipped, events.size(), failed, e);
+                return;
+            }
+        }
+        Files.delete(journalPath);
+    }
+
+    private int writeEach(Map<Like, Boolean> events) {
+        int skipped = 0;
+        for (Map.Entry<Like, Boolean> event : events.entrySet()) {
+            List<Like> like = List.of(event.getKey());
+            try {
+                store(event.getValue() ? like : List.of(), event.getValue() ? List.of() : like);
+            } catch (DataIntegrityViolationException e) {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Перезапись журнала после сброса, вызывается под syncLock. Под блокировкой берутся только
+     * оставшиеся события и позиция старого журнала; запись и fsync нового файла идут без нее.
+     * При подмене в новый файл копируется хвост, дописанный за это время. Пока подмена не прошла,
+     * старый журнал остается открытым и в работе, так что ошибка перезаписи не ломает прием лайков.
+     */
+    private void rewriteJournal() {
+        Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        ByteBuffer buffer;
+        long position;
+        long target;
+        lock.lock();
+        try {
+            flushing = Map.of();
+            ByteBuffer events = ByteBuffer.allocate(RECORD_SIZE * pendingSize);
+            pending.forEach((filmId, users) -> users.forEach((userId, added) ->
+                    events.put(added ? ADD : REMOVE).putInt(filmId).putInt(userId)));
+            buffer = events.flip();
+            position = journal.size();
+            target = appended;
+        } catch (IOException e) {
+            throw new DataConflictException("Не удалось перезаписать журнал лайков");
+        } finally {
+            lock.unlock();
+        }
+        FileChannel channel = null;
+        try {
+            Files.deleteIfExists(tmp);
+            channel = openJournal(tmp);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            lock.lock();
+            try {
+                FileChannel previous = journal;
+                long end = previous.size();
+                while (position < end) {
+                    position += previous.transferTo(position, end - position, channel);
+                }
+                Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                journal = channel;
+                channel = null;
+                closeQuietly(previous);
+            } finally {
+                lock.unlock();
+            }
+            synced = target;
+        } catch (IOException e) {
+            throw new DataConflictException("Не удалось перезаписать журнал лайков");
+        } finally {
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть файл журнала лайков", e);
+        }
+    }
+
+    private static FileChannel openJournal(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return channel.position(channel.size());
+    }
+
+    /**
+     * Несохраненные изменения лайков: film_id -> (user_id -> true, если лайк добавлен).
+     */
+    public record Overlay(Map<Integer, Map<Integer, Boolean>> changes) {
+        static final Overlay EMPTY = new Overlay(Map.of());
+
+        public Film apply(Film film) {
+            Map<Integer, Boolean> users = changes.get(film.getId());
+            if (users != null) {
+                users.forEach((userId, added) -> {
+                    if (added) {
+                        film.getLikes().add(userId.intValue());
+                    } else {
+                        film.getLikes().removeInt(userId);
+                    }
+                });
+            }
+            return film;
+        }
+
+        public <T extends Collection<Film>> T applyAll(T films) {
+            if (!changes.isEmpty()) {
+                films.forEach(this::apply);
+            }
+            return films;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.metrics.RequestStatistics;
+
+import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Параллельное выполнение независимых запросов догрузки (лайки, жанры) на виртуальных потоках.
+ * Число одновременных запросов ограничено семафором - по умолчанию половиной пула соединений,
+ * чтобы догрузка не вытесняла основные запросы. Внутри активной транзакции запросы выполняются
+ * последовательно: другой поток не увидел бы ее незафиксированных данных. Счетчики RequestStatistics
+ * текущего HTTP-запроса переносятся в поток задачи.
+ */
+@Component
+@Slf4j
+public class ParallelHydration {
+    private final boolean enabled;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public ParallelHydration(DataSource dataSource,
+                             @Value("${filmorate.parallel-hydration.enabled:false}") boolean enabled,
+                             @Value("${filmorate.parallel-hydration.max-concurrency:0}") int maxConcurrency) {
+        this.enabled = enabled;
+        int limit = maxConcurrency > 0 ? maxConcurrency : defaultConcurrency(dataSource);
+        this.permits = new Semaphore(limit);
+        this.executor = enabled ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        if (enabled) {
+            log.info("Параллельная догрузка фильмов включена, одновременных запросов не более {}", limit);
+        }
+    }
+
+    public <T> Task<T> fork(Supplier<T> query) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return new Task<>(CompletableFuture.completedFuture(query.get()));
+        }
+        RequestStatistics statistics = RequestStatistics.current();
+        return new Task<>(CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            RequestStatistics previous = RequestStatistics.attach(statistics);
+            try {
+                return query.get();
+            } finally {
+                RequestStatistics.attach(previous);
+                permits.release();
+            }
+        }, executor));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static int defaultConcurrency(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            return Math.max(1, hikari.getMaximumPoolSize() / 2);
+        }
+        return 1;
+    }
+
+    public record Task<T>(CompletableFuture<T> future) {
+        public T join() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
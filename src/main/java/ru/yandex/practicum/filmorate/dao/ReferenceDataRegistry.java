@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.dao.mappers.RatingRowMapper;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.util.List;
+
+/**
+ * Справочники жанров и рейтингов MPA. Меняются только миграцией R__reference_data.sql, поэтому загружаются
+ * один раз при старте в массивы, индексированные по id. Выданные объекты общие - изменять их нельзя.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataRegistry {
+    private final JdbcTemplate jdbc;
+    private final GenreRowMapper genreMapper;
+    private final RatingRowMapper ratingMapper;
+
+    private static final String FIND_ALL_GENRES_QUERY = "SELECT * FROM Genres ORDER BY genre_id";
+    private static final String FIND_ALL_RATINGS_QUERY = "SELECT * FROM Rating ORDER BY rating_id";
+
+    private volatile Snapshot snapshot = new Snapshot(new Genre[0], List.of(), new Rating[0], List.of());
+
+    @PostConstruct
+    public void reload() {
+        List<Genre> genres = List.copyOf(jdbc.query(FIND_ALL_GENRES_QUERY, genreMapper));
+        List<Rating> ratings = List.copyOf(jdbc.query(FIND_ALL_RATINGS_QUERY, ratingMapper));
+
+        Genre[] genresById = new Genre[genres.isEmpty() ? 0 : genres.getLast().getId() + 1];
+        genres.forEach(genre -> genresById[genre.getId()] = genre);
+        Rating[] ratingsById = new Rating[ratings.isEmpty() ? 0 : ratings.getLast().getId() + 1];
+        ratings.forEach(rating -> ratingsById[rating.getId()] = rating);
+
+        snapshot = new Snapshot(genresById, genres, ratingsById, ratings);
+        log.info("Загружены справочники: жанров {}, рейтингов {}", genres.size(), ratings.size());
+    }
+
+    public Genre findGenre(int id) {
+        Genre[] genres = snapshot.genresById();
+        return id >= 0 && id < genres.length ? genres[id] : null;
+    }
+
+    public List<Genre> findAllGenres() {
+        return snapshot.genres();
+    }
+
+    public Rating findRating(int id) {
+        Rating[] ratings = snapshot.ratingsById();
+        return id >= 0 && id < ratings.length ? ratings[id] : null;
+    }
+
+    public List<Rating> findAllRatings() {
+        return snapshot.ratings();
+    }
+
+    private record Snapshot(Genre[] genresById, List<Genre> genres, Rating[] ratingsById, List<Rating> ratings) {
+    }
+}
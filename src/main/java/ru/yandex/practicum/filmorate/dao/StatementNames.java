@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Имена SQL-запросов для метрик: текст запроса сопоставляется с константой DAO, в которой он объявлен,
+ * например "FilmDbStorage.FIND_ALL_LIKES". Константы собираются рефлексией по классам пакета dao.
+ * Шаблоны со списком IN (%s) сопоставляются по началу и концу текста.
+ */
+@Component
+@Slf4j
+public class StatementNames {
+    public static final String OTHER = "other";
+
+    private final Map<String, String> exact = new HashMap<>();
+    private final List<Template> templates = new ArrayList<>();
+
+    public StatementNames() {
+        this(scan(StatementNames.class.getPackageName()));
+    }
+
+    StatementNames(List<Class<?>> types) {
+        types.forEach(this::register);
+        templates.sort(Comparator.comparingInt((Template template) ->
+                template.prefix().length() + template.suffix().length()).reversed());
+        log.info("Зарегистрировано имен SQL-запросов: {}, шаблонов: {}", exact.size(), templates.size());
+    }
+
+    public String nameOf(String sql) {
+        if (sql == null) {
+            return OTHER;
+        }
+        String name = exact.get(sql);
+        if (name != null) {
+            return name;
+        }
+        for (Template template : templates) {
+            if (sql.startsWith(template.prefix()) && sql.endsWith(template.suffix())) {
+                return template.name();
+            }
+        }
+        return OTHER;
+    }
+
+    private void register(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers) || field.getType() != String.class) {
+                continue;
+            }
+            field.setAccessible(true);
+            String sql;
+            try {
+                sql = (String) field.get(null);
+            } catch (IllegalAccessException e) {
+                continue;
+            }
+            if (sql == null || !isSql(sql)) {
+                continue;
+            }
+            String name = type.getSimpleName() + "." + field.getName();
+            int placeholder = sql.indexOf("%s");
+            if (placeholder < 0) {
+                exact.putIfAbsent(sql, name);
+            } else {
+                templates.add(new Template(sql.substring(0, placeholder),
+                        sql.substring(sql.lastIndexOf("%s") + 2), name));
+            }
+        }
+    }
+
+    private static boolean isSql(String value) {
+        String start = value.stripLeading().toUpperCase(Locale.ROOT);
+        return start.startsWith("SELECT ") || start.startsWith("INSERT ") || start.startsWith("UPDATE ")
+                || start.startsWith("DELETE ") || start.startsWith("MERGE ") || start.startsWith("WITH ");
+    }
+
+    private static List<Class<?>> scan(String basePackage) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter((reader, factory) -> true);
+        List<Class<?>> types = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+            types.add(ClassUtils.resolveClassName(candidate.getBeanClassName(), StatementNames.class.getClassLoader()));
+        }
+        return types;
+    }
+
+    private record Template(String prefix, String suffix, String name) {
+    }
+}
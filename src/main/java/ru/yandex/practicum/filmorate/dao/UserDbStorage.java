@@ -2,26 +2,40 @@ package ru.yandex.practicum.filmorate.dao;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dao.mappers.UserRowMapper;
 import ru.yandex.practicum.filmorate.exception.DataConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntPairConsumer;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
 
 @Repository
-@Qualifier("userDbStorage")
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "db", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class UserDbStorage implements UserStorage {
@@ -30,11 +44,17 @@ public class UserDbStorage implements UserStorage {
 
     private static final String FIND_ALL_QUERY = "SELECT * FROM Users";
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM Users WHERE user_id = ?";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM Users WHERE user_id IN (%s) ORDER BY user_id";
+    private static final String FIND_ALL_IDS_QUERY = "SELECT user_id FROM Users";
+    private static final String FIND_EXISTING_IDS_QUERY = "SELECT user_id FROM Users WHERE user_id IN (%s)";
+    private static final String FIND_PAGE_QUERY = "SELECT * FROM Users WHERE user_id > ? ORDER BY user_id LIMIT ?";
     private static final String CREATE_QUERY = "INSERT INTO Users (login, name, email, birthday) VALUES (?, ?, ?, ?)";
     private static final String UPDATE_QUERY = "UPDATE Users SET login = ?, name = ?, email = ?, birthday = ? " +
             "WHERE user_id = ?";
 
     private static final String ADD_FRIEND_QUERY = "INSERT INTO Friends (user_id, friend_id) VALUES (?, ?)";
+    private static final String MERGE_FRIEND_QUERY = "MERGE INTO Friends (user_id, friend_id) KEY (user_id, friend_id) " +
+            "VALUES (?, ?)";
     private static final String REMOVE_FRIEND_QUERY = "DELETE FROM Friends WHERE user_id = ? AND friend_id = ?";
     private static final String FIND_FRIENDS_QUERY = "SELECT u.* FROM Users u " +
             "WHERE u.user_id IN (SELECT friend_id FROM Friends f WHERE f.user_id = ?)";
@@ -42,6 +62,9 @@ public class UserDbStorage implements UserStorage {
             "INNER JOIN Friends f2 ON f1.friend_id = f2.friend_id " +
             "INNER JOIN Users u ON f1.friend_id = u.user_id " +
             "WHERE f1.user_id = ? AND f2.user_id = ?";
+    private static final String FIND_ALL_FRIENDSHIPS_QUERY = "SELECT user_id, friend_id FROM Friends " +
+            "ORDER BY user_id, friend_id";
+    private static final int BATCH_SIZE = 1000;
 
 
     @Override
@@ -60,6 +83,24 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    @Override
+    public List<User> findUsers(int[] ids) {
+        log.info("Поиск пользователей по списку id, количество: {}", ids.length);
+        List<User> users = new ArrayList<>(ids.length);
+        for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+            Object[] chunk = Arrays.stream(ids, from, Math.min(from + BATCH_SIZE, ids.length)).boxed().toArray();
+            String query = String.format(FIND_BY_IDS_QUERY, String.join(",", Collections.nCopies(chunk.length, "?")));
+            users.addAll(jdbc.query(query, mapper, chunk));
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(int after, int limit) {
+        log.info("Поиск страницы пользователей после id: {}, размер: {}", after, limit);
+        return jdbc.query(FIND_PAGE_QUERY, mapper, after, limit);
+    }
+
     @Override
     public User create(User user) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
@@ -67,13 +108,7 @@ public class UserDbStorage implements UserStorage {
             jdbc.update(con -> {
                 log.info("Добавляем нового пользователя");
                 PreparedStatement ps = con.prepareStatement(CREATE_QUERY, Statement.RETURN_GENERATED_KEYS);
-                ps.setString(1, user.getLogin());
-                if (user.getName() == null || user.getName().isBlank()) {
-                    user.setName(user.getLogin());
-                }
-                ps.setString(2, user.getName());
-                ps.setString(3, user.getEmail());
-                ps.setDate(4, Date.valueOf(user.getBirthday()));
+                setUserValues(ps, user);
                 return ps;
             }, keyHolder);
         } catch (DataIntegrityViolationException e) {
@@ -91,6 +126,42 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    /**
+     * Одна пачка INSERT с возвратом ключей в одной транзакции; id проставляются в порядке списка.
+     */
+    @Override
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        log.info("Пакетное добавление пользователей, количество: {}", users.size());
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbc.batchUpdate(con -> con.prepareStatement(CREATE_QUERY, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setUserValues(ps, users.get(i));
+                        }
+
+                        public int getBatchSize() {
+                            return users.size();
+                        }
+                    }, keyHolder);
+        } catch (DataIntegrityViolationException e) {
+            throw new ValidationException("Ошибка валидации при сохранении в БД");
+        }
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != users.size()) {
+            throw new DataConflictException("Не удалось сохранить данные");
+        }
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+        return users;
+    }
+
     @Override
     public User update(User newUser) {
         log.info("Обновляем пользователя");
@@ -121,6 +192,26 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    /**
+     * Пакетное добавление дружбы; уже существующие связи пропускаются.
+     */
+    @Override
+    @Transactional
+    public void addFriends(List<Friendship> friendships) {
+        if (friendships.isEmpty()) {
+            return;
+        }
+        log.info("Пакетное добавление дружбы, количество: {}", friendships.size());
+        try {
+            jdbc.batchUpdate(MERGE_FRIEND_QUERY, friendships, BATCH_SIZE, (ps, friendship) -> {
+                ps.setInt(1, friendship.getUserId());
+                ps.setInt(2, friendship.getFriendId());
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new ValidationException("Ошибка валидации при сохранении в БД");
+        }
+    }
+
     @Override
     public void removeFriend(int id, int friendId) {
         jdbc.update(REMOVE_FRIEND_QUERY, id, friendId);
@@ -138,4 +229,37 @@ public class UserDbStorage implements UserStorage {
         log.info("Поиск общих друзей между {} и {}", id, otherId);
         return jdbc.query(FIND_COMMON_FRIENDS_QUERY, mapper, id, otherId);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void forEachId(IntConsumer action) {
+        log.info("Перебор id всех пользователей");
+        jdbc.query(FIND_ALL_IDS_QUERY, (RowCallbackHandler) rs -> action.accept(rs.getInt("user_id")));
+    }
+
+    @Override
+    public void forEachFriendship(IntPairConsumer action) {
+        log.info("Перебор всех связей дружбы");
+        jdbc.query(FIND_ALL_FRIENDSHIPS_QUERY,
+                (RowCallbackHandler) rs -> action.accept(rs.getInt("user_id"), rs.getInt("friend_id")));
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        log.info("Проверка существования пользователей, количество: {}", ids.size());
+        String query = String.format(FIND_EXISTING_IDS_QUERY, String.join(",", Collections.nCopies(ids.size(), "?")));
+        return new HashSet<>(jdbc.queryForList(query, Integer.class, ids.toArray()));
+    }
+
+    private static void setUserValues(PreparedStatement ps, User user) throws SQLException {
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+        ps.setString(1, user.getLogin());
+        ps.setString(2, user.getName());
+        ps.setString(3, user.getEmail());
+        ps.setDate(4, Date.valueOf(user.getBirthday()));
+    }
+}
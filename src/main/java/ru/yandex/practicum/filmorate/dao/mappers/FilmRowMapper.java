@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.dao.mappers;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Rating;
 
@@ -12,6 +13,8 @@ import java.sql.SQLException;
 @Component
 @RequiredArgsConstructor
 public class FilmRowMapper implements RowMapper<Film> {
+    private final ReferenceDataRegistry referenceData;
+
     @Override
     public Film mapRow(ResultSet rs, int rowNum) throws SQLException {
         Film film = new Film();
@@ -23,8 +26,11 @@ public class FilmRowMapper implements RowMapper<Film> {
 
         int ratingId = rs.getInt("rating_id");
         if (!rs.wasNull()) {
-            Rating rating = new Rating();
-            rating.setId(ratingId);
+            Rating rating = referenceData.findRating(ratingId);
+            if (rating == null) {
+                rating = new Rating();
+                rating.setId(ratingId);
+            }
             film.setMpa(rating);
         } else {
             film.setMpa(null);
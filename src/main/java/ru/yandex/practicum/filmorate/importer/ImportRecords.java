@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.importer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Построчное чтение файла импорта: CSV с заголовком или NDJSON (по расширению .csv, .ndjson, .jsonl).
+ * Каждая запись отдается как поле -> строковое значение; файл целиком в память не читается.
+ * Ошибка разбора одной строки не прерывает чтение: next() бросает ValidationException, и можно читать дальше.
+ */
+class ImportRecords implements Closeable {
+    private final BufferedReader reader;
+    private final JsonFactory jsonFactory;
+    private final String[] header;
+    private long line;
+
+    private ImportRecords(BufferedReader reader, JsonFactory jsonFactory, String[] header, long line) {
+        this.reader = reader;
+        this.jsonFactory = jsonFactory;
+        this.header = header;
+        this.line = line;
+    }
+
+    static ImportRecords open(Path path, JsonFactory jsonFactory) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new ImportRecords(reader, jsonFactory, null, 0);
+        }
+        if (name.endsWith(".csv")) {
+            String first = reader.readLine();
+            if (first == null) {
+                reader.close();
+                throw new ValidationException("Пустой CSV без заголовка: " + path);
+            }
+            List<String> columns = splitCsv(first.startsWith("\uFEFF") ? first.substring(1) : first);
+            return new ImportRecords(reader, null, columns.stream().map(String::trim).toArray(String[]::new), 1);
+        }
+        reader.close();
+        throw new ValidationException("Неизвестный формат файла импорта (ожидается .csv, .ndjson или .jsonl): " + path);
+    }
+
+    /**
+     * Следующая запись или null в конце файла. Пустые строки пропускаются.
+     */
+    Map<String, String> next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        return header == null ? parseJson(text) : parseCsv(text);
+    }
+
+    /**
+     * Номер строки последней прочитанной записи.
+     */
+    long line() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Map<String, String> parseCsv(String text) {
+        List<String> values = splitCsv(text);
+        if (values.size() != header.length) {
+            throw new ValidationException("ожидалось полей: " + header.length + ", получено: " + values.size());
+        }
+        Map<String, String> record = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            String value = values.get(i);
+            record.put(header[i], value.isEmpty() ? null : value);
+        }
+        return record;
+    }
+
+    private Map<String, String> parseJson(String text) {
+        Map<String, String> record = new HashMap<>();
+        try (JsonParser parser = jsonFactory.createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ValidationException("ожидался JSON-объект");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value.isScalarValue()) {
+                    record.put(field, value == JsonToken.VALUE_NULL ? null : parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("некорректный JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new ValidationException("некорректный JSON: " + e.getMessage());
+        }
+        return record;
+    }
+
+    /**
+     * Разбор строки CSV по RFC 4180: поля в кавычках могут содержать запятые и удвоенные кавычки.
+     * Переводы строк внутри полей не поддерживаются.
+     */
+    static List<String> splitCsv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new ValidationException("незакрытая кавычка");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
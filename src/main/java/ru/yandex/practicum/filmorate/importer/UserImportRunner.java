@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.importer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Режим импорта при запуске:
+ * java -jar filmorate.jar --filmorate.import.users=users.csv [--filmorate.import.friends=friends.csv]
+ * [--filmorate.import.exit=true]. С exit=true приложение завершается после импорта, иначе продолжает работу.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.import.users")
+public class UserImportRunner implements ApplicationRunner {
+    private final UserImporter importer;
+    private final ConfigurableApplicationContext context;
+    private final Path users;
+    private final Path friends;
+    private final boolean exit;
+
+    public UserImportRunner(UserImporter importer,
+                            ConfigurableApplicationContext context,
+                            @Value("${filmorate.import.users}") String users,
+                            @Value("${filmorate.import.friends:}") String friends,
+                            @Value("${filmorate.import.exit:false}") boolean exit) {
+        this.importer = importer;
+        this.context = context;
+        this.users = Path.of(users);
+        this.friends = friends.isBlank() ? null : Path.of(friends);
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        importer.importUsers(users, friends);
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
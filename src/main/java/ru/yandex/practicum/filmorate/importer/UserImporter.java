@@ -0,0 +1,271 @@
+package ru.yandex.practicum.filmorate.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.index.EntityExistenceIndex;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.LongIntHashMap;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Импорт пользователей и дружбы от партнера. Пользователи читаются из файла с полями
+ * id, login, name, email, birthday, где id - внешний числовой идентификатор; дружба - из файла с полями
+ * userId, friendId во внешних id. Внешние id сопоставляются с user_id в LongIntHashMap, записи сохраняются
+ * пачками по filmorate.import.chunk-size, каждая пачка в своей транзакции. Некорректные записи
+ * пропускаются и считаются, ход импорта и скорость пишутся в журнал.
+ */
+@Component
+@Slf4j
+public class UserImporter {
+    private static final int MISSING = -1;
+    private static final int PENDING = -2;
+    private static final int LOGGED_REJECTIONS = 20;
+
+    private final UserStorage userStorage;
+    private final EntityExistenceIndex existenceIndex;
+    private final FriendGraph friendGraph;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final long progressIntervalNanos;
+
+    public UserImporter(UserStorage userStorage,
+                        EntityExistenceIndex existenceIndex,
+                        FriendGraph friendGraph,
+                        Validator validator,
+                        ObjectMapper objectMapper,
+                        @Value("${filmorate.import.chunk-size:5000}") int chunkSize,
+                        @Value("${filmorate.import.progress-interval-ms:5000}") long progressIntervalMs) {
+        this.userStorage = userStorage;
+        this.existenceIndex = existenceIndex;
+        this.friendGraph = friendGraph;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.progressIntervalNanos = progressIntervalMs * 1_000_000;
+    }
+
+    /**
+     * Импортирует пользователей, затем дружбу (friendships может быть null) и перестраивает граф дружбы.
+     */
+    public Report importUsers(Path users, Path friendships) throws IOException {
+        long start = System.nanoTime();
+        LongIntHashMap ids = new LongIntHashMap(chunkSize, MISSING);
+        Progress userProgress = new Progress("пользователей", start);
+        readUsers(users, ids, userProgress);
+        Progress friendProgress = new Progress("связей дружбы", System.nanoTime());
+        if (friendships != null) {
+            readFriendships(friendships, ids, friendProgress);
+            friendGraph.rebuild();
+        }
+        Report report = new Report(userProgress.read, userProgress.saved, userProgress.rejected,
+                friendProgress.read, friendProgress.saved, friendProgress.rejected,
+                (System.nanoTime() - start) / 1_000_000);
+        log.info("Импорт завершен: {}", report);
+        return report;
+    }
+
+    private void readUsers(Path path, LongIntHashMap ids, Progress progress) throws IOException {
+        log.info("Импорт пользователей из {}", path);
+        List<User> chunk = new ArrayList<>(chunkSize);
+        long[] externalIds = new long[chunkSize];
+        try (ImportRecords records = ImportRecords.open(path, objectMapper.getFactory())) {
+            while (true) {
+                try {
+                    Map<String, String> record = next(records, progress);
+                    if (record == null) {
+                        break;
+                    }
+                    long externalId = parseId(record, "id");
+                    if (ids.get(externalId) != MISSING) {
+                        throw new ValidationException("повторный id " + externalId);
+                    }
+                    User user = toUser(record);
+                    ids.put(externalId, PENDING);
+                    externalIds[chunk.size()] = externalId;
+                    chunk.add(user);
+                } catch (ValidationException e) {
+                    progress.reject(records.line(), e.getMessage());
+                    continue;
+                }
+                if (chunk.size() == chunkSize) {
+                    saveUsers(chunk, externalIds, ids, progress);
+                }
+            }
+        }
+        saveUsers(chunk, externalIds, ids, progress);
+        progress.finish();
+    }
+
+    private void readFriendships(Path path, LongIntHashMap ids, Progress progress) throws IOException {
+        log.info("Импорт дружбы из {}", path);
+        List<Friendship> chunk = new ArrayList<>(chunkSize);
+        try (ImportRecords records = ImportRecords.open(path, objectMapper.getFactory())) {
+            while (true) {
+                try {
+                    Map<String, String> record = next(records, progress);
+                    if (record == null) {
+                        break;
+                    }
+                    int userId = resolve(ids, parseId(record, "userId"));
+                    int friendId = resolve(ids, parseId(record, "friendId"));
+                    if (userId == friendId) {
+                        throw new ValidationException("дружба с самим собой");
+                    }
+                    chunk.add(new Friendship(userId, friendId));
+                } catch (ValidationException e) {
+                    progress.reject(records.line(), e.getMessage());
+                    continue;
+                }
+                if (chunk.size() == chunkSize) {
+                    saveFriendships(chunk, progress);
+                }
+            }
+        }
+        saveFriendships(chunk, progress);
+        progress.finish();
+    }
+
+    private void saveUsers(List<User> chunk, long[] externalIds, LongIntHashMap ids, Progress progress) {
+        List<User> created = userStorage.createAll(chunk);
+        for (int i = 0; i < created.size(); i++) {
+            int id = created.get(i).getId();
+            ids.put(externalIds[i], id);
+            existenceIndex.addUser(id);
+        }
+        progress.saved += created.size();
+        chunk.clear();
+        progress.report();
+    }
+
+    private void saveFriendships(List<Friendship> chunk, Progress progress) {
+        userStorage.addFriends(chunk);
+        progress.saved += chunk.size();
+        chunk.clear();
+        progress.report();
+    }
+
+    private static Map<String, String> next(ImportRecords records, Progress progress) throws IOException {
+        try {
+            Map<String, String> record = records.next();
+            if (record != null) {
+                progress.read++;
+            }
+            return record;
+        } catch (ValidationException e) {
+            progress.read++;
+            throw e;
+        }
+    }
+
+    private User toUser(Map<String, String> record) {
+        User user = new User();
+        user.setLogin(record.get("login"));
+        user.setName(record.get("name"));
+        user.setEmail(record.get("email"));
+        String birthday = record.get("birthday");
+        if (birthday == null) {
+            throw new ValidationException("не указан birthday");
+        }
+        try {
+            user.setBirthday(LocalDate.parse(birthday));
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("некорректная дата birthday: " + birthday);
+        }
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .collect(Collectors.joining("; ")));
+        }
+        return user;
+    }
+
+    private static long parseId(Map<String, String> record, String field) {
+        String value = record.get(field);
+        if (value == null) {
+            throw new ValidationException("не указан " + field);
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ValidationException("некорректный " + field + ": " + value);
+        }
+    }
+
+    private static int resolve(LongIntHashMap ids, long externalId) {
+        int id = ids.get(externalId);
+        if (id < 0) {
+            throw new ValidationException("неизвестный пользователь " + externalId);
+        }
+        return id;
+    }
+
+    /**
+     * Итог импорта; длительность в миллисекундах.
+     */
+    public record Report(long usersRead, long usersCreated, long usersRejected,
+                         long friendshipsRead, long friendshipsCreated, long friendshipsRejected,
+                         long elapsedMs) {
+    }
+
+    private final class Progress {
+        private final String subject;
+        private final long start;
+        private long lastReport;
+        private long read;
+        private long saved;
+        private long rejected;
+
+        private Progress(String subject, long start) {
+            this.subject = subject;
+            this.start = start;
+            this.lastReport = start;
+        }
+
+        private void reject(long line, String reason) {
+            rejected++;
+            if (rejected <= LOGGED_REJECTIONS) {
+                log.warn("Импорт {}: строка {} пропущена - {}", subject, line, reason);
+            } else if (rejected == LOGGED_REJECTIONS + 1) {
+                log.warn("Импорт {}: дальнейшие пропущенные строки не выводятся", subject);
+            }
+        }
+
+        private void report() {
+            long now = System.nanoTime();
+            if (now - lastReport >= progressIntervalNanos) {
+                lastReport = now;
+                log.info("Импорт {}: прочитано {}, сохранено {}, пропущено {}, {} записей/с",
+                        subject, read, saved, rejected, rate(now));
+            }
+        }
+
+        private void finish() {
+            long now = System.nanoTime();
+            log.info("Импорт {} завершен: прочитано {}, сохранено {}, пропущено {}, {} записей/с",
+                    subject, read, saved, rejected, rate(now));
+        }
+
+        private long rate(long now) {
+            return now == start ? 0 : read * 1_000_000_000L / (now - start);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.Set;
+
+/**
+ * Битовые карты существующих id пользователей и фильмов для проверок без запросов к БД.
+ * Если id в карте нет, выполняется контрольный запрос: так записи, созданные в обход сервисов,
+ * не приводят к ложному NotFound.
+ */
+@Component
+@Slf4j
+public class EntityExistenceIndex {
+    private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final IdBitmap users = new IdBitmap();
+    private final IdBitmap films = new IdBitmap();
+
+    public EntityExistenceIndex(UserStorage userStorage,
+                                FilmStorage filmStorage) {
+        this.userStorage = userStorage;
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        users.clear();
+        films.clear();
+        userStorage.forEachId(users::add);
+        filmStorage.forEachId(films::add);
+        log.info("Индекс существования построен: пользователей {}, фильмов {}",
+                users.cardinality(), films.cardinality());
+    }
+
+    public void addUser(int id) {
+        users.add(id);
+    }
+
+    public void addFilm(int id) {
+        films.add(id);
+    }
+
+    public void requireUser(int id) {
+        if (!users.contains(id)) {
+            if (userStorage.findExistingIds(Set.of(id)).isEmpty()) {
+                throw new NotFoundException("По указанному id (" + id + ") пользователь не обнаружен");
+            }
+            users.add(id);
+        }
+    }
+
+    public void requireFilm(int id) {
+        if (!films.contains(id)) {
+            if (filmStorage.findExistingIds(Set.of(id)).isEmpty()) {
+                throw new NotFoundException("По указанному id (" + id + ") фильм не обнаружен");
+            }
+            films.add(id);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.*;
+
+/**
+ * Индекс популярности фильмов: упорядочен по убыванию лайков, при равенстве - по id.
+ * Ключ хранится в одном long: старшие 32 бита - инвертированное число лайков, младшие - id фильма.
+ */
+@Component
+@DependsOn("likeWriteBuffer")
+@Slf4j
+public class FilmPopularityIndex {
+    private final FilmStorage filmStorage;
+    private final boolean enabled;
+    private final NavigableSet<Long> ranking = new TreeSet<>();
+    private final Map<Integer, Integer> likesByFilm = new HashMap<>();
+
+    public FilmPopularityIndex(FilmStorage filmStorage,
+                               @Value("${filmorate.popular.index.enabled:true}") boolean enabled) {
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        if (!enabled) {
+            log.info("Индекс популярности отключен, популярные фильмы выбираются запросом к БД");
+            return;
+        }
+        ranking.clear();
+        likesByFilm.clear();
+        filmStorage.countLikes().forEach(this::put);
+        log.info("Индекс популярности построен, фильмов: {}", likesByFilm.size());
+    }
+
+    public synchronized void addFilm(int filmId) {
+        if (!enabled) {
+            return;
+        }
+        likesByFilm.putIfAbsent(filmId, 0);
+        ranking.add(key(filmId, likesByFilm.get(filmId)));
+    }
+
+    public synchronized void incrementLikes(int filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public synchronized void decrementLikes(int filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public synchronized List<Integer> findTop(int count) {
+        List<Integer> ids = new ArrayList<>(Math.min(count, ranking.size()));
+        Iterator<Long> iterator = ranking.iterator();
+        while (iterator.hasNext() && ids.size() < count) {
+            ids.add((int) (long) iterator.next());
+        }
+        return ids;
+    }
+
+    private void changeLikes(int filmId, int delta) {
+        if (!enabled) {
+            return;
+        }
+        int likes = likesByFilm.getOrDefault(filmId, 0);
+        ranking.remove(key(filmId, likes));
+        put(filmId, Math.max(0, likes + delta));
+    }
+
+    private void put(int filmId, int likes) {
+        likesByFilm.put(filmId, likes);
+        ranking.add(key(filmId, likes));
+    }
+
+    private static long key(int filmId, int likes) {
+        return ((long) (Integer.MAX_VALUE - likes) << 32) | filmId;
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntArrays;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Коллаборативная фильтрация по матрице лайков. Соседи - пользователи с наибольшим коэффициентом Жаккара
+ * по лайкнутым фильмам; оценка фильма - сумма сходства соседей, которые его лайкнули.
+ * Кандидаты в соседи с популярного фильма берутся равномерной выборкой до max-fan-out, а не первыми
+ * по id - иначе соседями становились бы только самые старые аккаунты.
+ * Сходство считается параллельно в общем fork-join пуле. Результат кэшируется по пользователю
+ * и сбрасывается, когда пользователь меняет свои лайки; результат, посчитанный до сброса этого
+ * пользователя, в кэш не попадает (метка загрузки, как в FilmCache).
+ */
+@Component
+@Slf4j
+public class FilmRecommendations {
+    private final LikeMatrix matrix;
+    private final int maxFanOut;
+    private final int neighbours;
+    private final int maxResults;
+    private final int cacheSize;
+    private final Map<Integer, int[]> cache;
+    private final Map<Integer, Object> loading = new HashMap<>();
+
+    public FilmRecommendations(LikeMatrix matrix,
+                               @Value("${filmorate.recommendations.max-fan-out:1000}") int maxFanOut,
+                               @Value("${filmorate.recommendations.neighbours:50}") int neighbours,
+                               @Value("${filmorate.recommendations.max-results:100}") int maxResults,
+                               @Value("${filmorate.recommendations.cache-size:10000}") int cacheSize) {
+        this.matrix = matrix;
+        this.maxFanOut = maxFanOut;
+        this.neighbours = neighbours;
+        this.maxResults = maxResults;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                return size() > FilmRecommendations.this.cacheSize;
+            }
+        };
+    }
+
+    public int[] recommend(int userId, int count) {
+        int[] ids;
+        Object load = new Object();
+        synchronized (cache) {
+            ids = cache.get(userId);
+            if (ids == null) {
+                loading.put(userId, load);
+            }
+        }
+        if (ids == null) {
+            try {
+                ids = compute(userId);
+            } finally {
+                synchronized (cache) {
+                    if (loading.remove(userId, load) && ids != null) {
+                        cache.put(userId, ids);
+                    }
+                }
+            }
+        }
+        return ids.length <= count ? ids : Arrays.copyOf(ids, count);
+    }
+
+    public void invalidate(int userId) {
+        synchronized (cache) {
+            loading.remove(userId);
+            cache.remove(userId);
+        }
+    }
+
+    private int[] compute(int userId) {
+        int[] liked = matrix.filmsLikedBy(userId);
+        if (liked.length == 0) {
+            return IntArrays.EMPTY;
+        }
+        int[] candidates = collectCandidates(userId, liked);
+        if (candidates.length == 0) {
+            return IntArrays.EMPTY;
+        }
+
+        long[] scored = IntStream.of(candidates).parallel()
+                .mapToLong(candidate -> {
+                    int[] theirs = matrix.filmsLikedBy(candidate);
+                    int common = IntArrays.intersectionSize(liked, theirs);
+                    float similarity = (float) common / (liked.length + theirs.length - common);
+                    return ((long) Float.floatToIntBits(similarity) << 32) | candidate;
+                })
+                .sorted()
+                .toArray();
+
+        int top = Math.min(neighbours, scored.length);
+        Map<Integer, Float> scores = new LinkedHashMap<>();
+        for (int i = scored.length - 1; i >= scored.length - top; i--) {
+            float similarity = Float.intBitsToFloat((int) (scored[i] >>> 32));
+            for (int filmId : matrix.filmsLikedBy((int) scored[i])) {
+                if (Arrays.binarySearch(liked, filmId) < 0) {
+                    scores.merge(filmId, similarity, Float::sum);
+                }
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Float>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(maxResults)
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+    }
+
+    private int[] collectCandidates(int userId, int[] liked) {
+        int[] buffer = new int[64];
+        int size = 0;
+        for (int filmId : liked) {
+            int[] users = matrix.usersWhoLiked(filmId);
+            int limit = Math.min(users.length, maxFanOut);
+            if (size + limit > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(size + limit, buffer.length * 2));
+            }
+            for (int i = 0; i < limit; i++) {
+                int candidate = users[IntArrays.sample(i, limit, users.length)];
+                if (candidate != userId) {
+                    buffer[size++] = candidate;
+                }
+            }
+        }
+        return IntStream.of(buffer).limit(size).sorted().distinct().toArray();
+    }
+}
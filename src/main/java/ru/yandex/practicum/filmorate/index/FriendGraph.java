@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntArrays;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя отсортированный массив id друзей.
+ * Направленность рёбер совпадает с таблицей Friends. Изменение заменяет строку новым массивом,
+ * поэтому по ссылке на строку можно проверить, что она не менялась.
+ */
+@Component
+@Slf4j
+public class FriendGraph {
+    private final UserStorage userStorage;
+    private final IntRows rows = new IntRows();
+
+    public FriendGraph(UserStorage userStorage) {
+        this.userStorage = userStorage;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        IntRows.Builder builder = new IntRows.Builder();
+        userStorage.forEachFriendship(builder::add);
+        rows.replace(builder);
+        log.info("Граф дружбы построен: связей {}", builder.size());
+    }
+
+    public int[] friends(int id) {
+        return rows.get(id);
+    }
+
+    public int[] commonFriends(int id, int otherId) {
+        return IntArrays.intersect(friends(id), friends(otherId));
+    }
+
+    public void addFriend(int id, int friendId) {
+        rows.add(id, friendId);
+    }
+
+    public void removeFriend(int id, int friendId) {
+        rows.remove(id, friendId);
+    }
+}
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntArrays;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Рекомендации "возможно, вы знакомы": друзья друзей, упорядоченные по числу общих друзей.
+ * Обход ограничен двумя шагами, а у каждой вершины просматривается не больше maxFanOut соседей,
+ * чтобы пользователи-"хабы" не делали запрос неограниченно дорогим. Соседи берутся из строки
+ * с равным шагом, то есть со всего диапазона id, а не только самые старые аккаунты.
+ * <p>
+ * Результат кэшируется по пользователю вместе со строками графа, из которых он посчитан. Строки
+ * неизменяемы и при записи заменяются новым массивом, поэтому изменение дружбы сбрасывает только
+ * результаты, читавшие эту строку: самого пользователя и тех, у кого он попал в выборку друзей.
+ */
+@Component
+@Slf4j
+public class FriendSuggestions {
+    private final FriendGraph graph;
+    private final int maxFanOut;
+    private final int maxResults;
+    private final int cacheSize;
+    private final Map<Integer, Entry> cache;
+
+    public FriendSuggestions(FriendGraph graph,
+                             @Value("${filmorate.friends.suggestions.max-fan-out:500}") int maxFanOut,
+                             @Value("${filmorate.friends.suggestions.max-results:100}") int maxResults,
+                             @Value("${filmorate.friends.suggestions.cache-size:10000}") int cacheSize) {
+        this.graph = graph;
+        this.maxFanOut = maxFanOut;
+        this.maxResults = maxResults;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > FriendSuggestions.this.cacheSize;
+            }
+        };
+    }
+
+    public int[] suggest(int id, int count) {
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(id);
+        }
+        if (entry == null || !entry.isCurrent(graph)) {
+            entry = compute(id);
+            synchronized (cache) {
+                cache.put(id, entry);
+            }
+        }
+        return entry.ids.length <= count ? entry.ids : Arrays.copyOf(entry.ids, count);
+    }
+
+    private Entry compute(int id) {
+        int[] direct = graph.friends(id);
+        int fanOut = Math.min(direct.length, maxFanOut);
+        int[] sources = new int[fanOut + 1];
+        int[][] rows = new int[fanOut + 1][];
+        sources[0] = id;
+        rows[0] = direct;
+        int[] candidates = new int[16];
+        int size = 0;
+        for (int i = 0; i < fanOut; i++) {
+            int friend = direct[IntArrays.sample(i, fanOut, direct.length)];
+            int[] second = graph.friends(friend);
+            sources[i + 1] = friend;
+            rows[i + 1] = second;
+            int limit = Math.min(second.length, maxFanOut);
+            if (size + limit > candidates.length) {
+                candidates = Arrays.copyOf(candidates, Math.max(size + limit, candidates.length * 2));
+            }
+            for (int j = 0; j < limit; j++) {
+                int candidate = second[IntArrays.sample(j, limit, second.length)];
+                if (candidate != id && Arrays.binarySearch(direct, candidate) < 0) {
+                    candidates[size++] = candidate;
+                }
+            }
+        }
+        if (size == 0) {
+            return new Entry(IntArrays.EMPTY, sources, rows);
+        }
+        Arrays.sort(candidates, 0, size);
+
+        long[] ranked = new long[size];
+        int distinct = 0;
+        for (int i = 0; i < size; ) {
+            int j = i;
+            while (j < size && candidates[j] == candidates[i]) {
+                j++;
+            }
+            ranked[distinct++] = ((long) (Integer.MAX_VALUE - (j - i)) << 32) | candidates[i];
+            i = j;
+        }
+        Arrays.sort(ranked, 0, distinct);
+
+        int[] result = new int[Math.min(distinct, maxResults)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (int) ranked[i];
+        }
+        return new Entry(result, sources, rows);
+    }
+
+    /**
+     * Результат и строки графа, прочитанные при расчете: sources[k] -> rows[k].
+     */
+    private record Entry(int[] ids, int[] sources, int[][] rows) {
+        boolean isCurrent(FriendGraph graph) {
+            for (int k = 0; k < sources.length; k++) {
+                if (graph.friends(sources[k]) != rows[k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
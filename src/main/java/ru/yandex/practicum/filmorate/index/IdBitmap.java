@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Плотный битовый набор неотрицательных id. Чтение без блокировок, запись и рост массива - под монитором.
+ */
+public class IdBitmap {
+    private volatile AtomicLongArray words = new AtomicLongArray(1);
+
+    public boolean contains(int id) {
+        AtomicLongArray current = words;
+        int index = id >>> 6;
+        return id >= 0 && index < current.length() && (current.get(index) & (1L << id)) != 0;
+    }
+
+    public synchronized void add(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id не может быть отрицательным: " + id);
+        }
+        int index = id >>> 6;
+        AtomicLongArray current = words;
+        if (index >= current.length()) {
+            AtomicLongArray grown = new AtomicLongArray(Math.max(index + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            current = grown;
+            words = grown;
+        }
+        current.set(index, current.get(index) | (1L << id));
+    }
+
+    public synchronized void clear() {
+        words = new AtomicLongArray(1);
+    }
+
+    public int cardinality() {
+        AtomicLongArray current = words;
+        int count = 0;
+        for (int i = 0; i < current.length(); i++) {
+            count += Long.bitCount(current.get(i));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.index;
+
+import ru.yandex.practicum.filmorate.util.IntArrays;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Отображение id -> отсортированный массив id. Строки неизменяемы и заменяются целиком при записи,
+ * поэтому чтение идёт без блокировок. Массовая загрузка собирает строки через CSR (подсчёт + раскладка).
+ */
+public class IntRows {
+    private volatile AtomicReferenceArray<int[]> rows = new AtomicReferenceArray<>(0);
+
+    public int[] get(int key) {
+        AtomicReferenceArray<int[]> current = rows;
+        if (key < 0 || key >= current.length()) {
+            return IntArrays.EMPTY;
+        }
+        int[] row = current.get(key);
+        return row == null ? IntArrays.EMPTY : row;
+    }
+
+    public synchronized boolean add(int key, int value) {
+        int[] row = get(key);
+        int[] updated = IntArrays.insert(row, value);
+        if (updated == row) {
+            return false;
+        }
+        ensureCapacity(key).set(key, updated);
+        return true;
+    }
+
+    public synchronized boolean remove(int key, int value) {
+        int[] row = get(key);
+        int[] updated = IntArrays.remove(row, value);
+        if (updated == row) {
+            return false;
+        }
+        rows.set(key, updated);
+        return true;
+    }
+
+    public synchronized void replace(Builder builder) {
+        rows = builder.build();
+    }
+
+    private AtomicReferenceArray<int[]> ensureCapacity(int key) {
+        AtomicReferenceArray<int[]> current = rows;
+        if (key >= current.length()) {
+            AtomicReferenceArray<int[]> grown = new AtomicReferenceArray<>(Math.max(key + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            rows = grown;
+            current = grown;
+        }
+        return current;
+    }
+
+    public static class Builder {
+        private int[] keys = new int[64];
+        private int[] values = new int[64];
+        private int size;
+        private int maxKey = -1;
+
+        public void add(int key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            maxKey = Math.max(maxKey, key);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private AtomicReferenceArray<int[]> build() {
+            int[] offsets = new int[maxKey + 2];
+            for (int i = 0; i < size; i++) {
+                offsets[keys[i] + 1]++;
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+            int[] packed = new int[size];
+            int[] cursor = Arrays.copyOf(offsets, offsets.length);
+            for (int i = 0; i < size; i++) {
+                packed[cursor[keys[i]]++] = values[i];
+            }
+
+            AtomicReferenceArray<int[]> built = new AtomicReferenceArray<>(maxKey + 1);
+            for (int key = 0; key <= maxKey; key++) {
+                if (offsets[key + 1] > offsets[key]) {
+                    int[] row = Arrays.copyOfRange(packed, offsets[key], offsets[key + 1]);
+                    Arrays.sort(row);
+                    built.set(key, dedupe(row));
+                }
+            }
+            return built;
+        }
+
+        private static int[] dedupe(int[] sorted) {
+            int size = 1;
+            for (int i = 1; i < sorted.length; i++) {
+                if (sorted[i] != sorted[size - 1]) {
+                    sorted[size++] = sorted[i];
+                }
+            }
+            return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+/**
+ * Матрица лайков в памяти в двух проекциях: пользователь -> фильмы и фильм -> пользователи.
+ */
+@Component
+@DependsOn("likeWriteBuffer")
+@Slf4j
+public class LikeMatrix {
+    private final FilmStorage filmStorage;
+    private final IntRows filmsByUser = new IntRows();
+    private final IntRows usersByFilm = new IntRows();
+
+    public LikeMatrix(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        IntRows.Builder byUser = new IntRows.Builder();
+        IntRows.Builder byFilm = new IntRows.Builder();
+        filmStorage.forEachLike((filmId, userId) -> {
+            byUser.add(userId, filmId);
+            byFilm.add(filmId, userId);
+        });
+        filmsByUser.replace(byUser);
+        usersByFilm.replace(byFilm);
+        log.info("Матрица лайков построена: лайков {}", byUser.size());
+    }
+
+    public int[] filmsLikedBy(int userId) {
+        return filmsByUser.get(userId);
+    }
+
+    public int[] usersWhoLiked(int filmId) {
+        return usersByFilm.get(filmId);
+    }
+
+    /**
+     * @return true, если лайка еще не было
+     */
+    public synchronized boolean addLike(int filmId, int userId) {
+        usersByFilm.add(filmId, userId);
+        return filmsByUser.add(userId, filmId);
+    }
+
+    /**
+     * @return true, если лайк был
+     */
+    public synchronized boolean removeLike(int filmId, int userId) {
+        usersByFilm.remove(filmId, userId);
+        return filmsByUser.remove(userId, filmId);
+    }
+}
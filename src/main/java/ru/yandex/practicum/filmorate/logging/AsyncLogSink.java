@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpHeaders;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Origin;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.attributes.HttpAttributes;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sink Logbook, который форматирует и пишет журнал HTTP-обменов в отдельном потоке. В потоке запроса
+ * снимается только неизменяемая копия запроса или ответа (тело к этому моменту уже обрезано
+ * по logbook.write.max-body-size), после чего она ставится в ограниченную очередь. Если очередь
+ * заполнена, запись отбрасывается и учитывается в filmorate.logging.dropped: под нагрузкой журнал
+ * теряет записи, но не тормозит ответы. При filmorate.logging.async=false работает как DefaultSink.
+ */
+@Component
+@Slf4j
+public class AsyncLogSink implements Sink {
+    private final HttpLogFormatter formatter;
+    private final HttpLogWriter writer;
+    private final boolean async;
+    private final ThreadPoolExecutor executor;
+    private final Counter dropped;
+
+    public AsyncLogSink(HttpLogFormatter formatter,
+                        HttpLogWriter writer,
+                        MeterRegistry registry,
+                        @Value("${filmorate.logging.async:true}") boolean async,
+                        @Value("${filmorate.logging.queue-capacity:1000}") int queueCapacity) {
+        this.formatter = formatter;
+        this.writer = writer;
+        this.async = async;
+        this.dropped = Counter.builder("filmorate.logging.dropped")
+                .description("Записей журнала HTTP, отброшенных из-за переполнения очереди")
+                .register(registry);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http-log-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> dropped.increment());
+        Gauge.builder("filmorate.logging.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Записей журнала HTTP в очереди")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Журнал HTTP не дописан при остановке, потеряно записей: {}", executor.shutdownNow().size());
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return writer.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request) throws IOException {
+        RequestSnapshot snapshot = RequestSnapshot.of(request);
+        submit(() -> writer.write(precorrelation, formatter.format(precorrelation, snapshot)));
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        ResponseSnapshot snapshot = ResponseSnapshot.of(response);
+        submit(() -> writer.write(correlation, formatter.format(correlation, snapshot)));
+    }
+
+    private void submit(LogTask task) throws IOException {
+        if (!async) {
+            task.run();
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Не удалось записать журнал HTTP", e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface LogTask {
+        void run() throws IOException;
+    }
+
+    private record RequestSnapshot(String getRemote, String getMethod, String getScheme, String getHost,
+                                   Optional<Integer> getPort, String getPath, String getQuery,
+                                   String getProtocolVersion, Origin getOrigin, HttpHeaders getHeaders,
+                                   String getContentType, Charset getCharset, HttpAttributes getAttributes,
+                                   byte[] getBody) implements HttpRequest {
+        static RequestSnapshot of(HttpRequest request) throws IOException {
+            return new RequestSnapshot(request.getRemote(), request.getMethod(), request.getScheme(),
+                    request.getHost(), request.getPort(), request.getPath(), request.getQuery(),
+                    request.getProtocolVersion(), request.getOrigin(), HttpHeaders.of(request.getHeaders()),
+                    request.getContentType(), request.getCharset(), request.getAttributes(), request.getBody());
+        }
+
+        @Override
+        public HttpRequest withBody() {
+            return this;
+        }
+
+        @Override
+        public HttpRequest withoutBody() {
+            return new RequestSnapshot(getRemote, getMethod, getScheme, getHost, getPort, getPath, getQuery,
+                    getProtocolVersion, getOrigin, getHeaders, getContentType, getCharset, getAttributes,
+                    new byte[0]);
+        }
+    }
+
+    private record ResponseSnapshot(int getStatus, String getProtocolVersion, Origin getOrigin,
+                                    HttpHeaders getHeaders, String getContentType, Charset getCharset,
+                                    byte[] getBody) implements HttpResponse {
+        static ResponseSnapshot of(HttpResponse response) throws IOException {
+            return new ResponseSnapshot(response.getStatus(), response.getProtocolVersion(), response.getOrigin(),
+                    HttpHeaders.of(response.getHeaders()), response.getContentType(), response.getCharset(),
+                    response.getBody());
+        }
+
+        @Override
+        public HttpResponse withBody() {
+            return this;
+        }
+
+        @Override
+        public HttpResponse withoutBody() {
+            return new ResponseSnapshot(getStatus, getProtocolVersion, getOrigin, getHeaders, getContentType,
+                    getCharset, new byte[0]);
+        }
+    }
+}
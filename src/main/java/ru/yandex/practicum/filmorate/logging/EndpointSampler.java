@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Условие Logbook: какую долю обменов по каждому эндпоинту журналировать. Правила задаются строкой
+ * "[МЕТОД ]шаблон=доля" через запятую и проверяются по порядку, побеждает первое подошедшее,
+ * например "GET /films=0.001, GET /films/**=0.01, POST /**=1". Для остальных запросов действует
+ * default-rate. Решение принимается до обработки, поэтому ответы с ошибками сэмплируются наравне с прочими.
+ */
+@Component("requestCondition")
+@Slf4j
+public class EndpointSampler implements Predicate<HttpRequest> {
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<Rule> rules;
+    private final double defaultRate;
+
+    public EndpointSampler(@Value("${filmorate.logging.sampling.rates:}") String rates,
+                           @Value("${filmorate.logging.sampling.default-rate:1.0}") double defaultRate) {
+        this.rules = parse(rates);
+        this.defaultRate = defaultRate;
+        log.info("Журналирование запросов: правил сэмплирования {}, доля по умолчанию {}", rules.size(), defaultRate);
+    }
+
+    @Override
+    public boolean test(HttpRequest request) {
+        double rate = rateFor(request.getMethod(), request.getPath());
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    public double rateFor(String method, String path) {
+        for (Rule rule : rules) {
+            if ((rule.method() == null || rule.method().equalsIgnoreCase(method)) && matcher.match(rule.pattern(), path)) {
+                return rule.rate();
+            }
+        }
+        return defaultRate;
+    }
+
+    private static List<Rule> parse(String rates) {
+        List<Rule> rules = new ArrayList<>();
+        for (String part : rates.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            int separator = part.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Ожидается правило вида [МЕТОД ]шаблон=доля, получено: " + part);
+            }
+            String endpoint = part.substring(0, separator).trim();
+            double rate = Double.parseDouble(part.substring(separator + 1).trim());
+            int space = endpoint.indexOf(' ');
+            if (space < 0) {
+                rules.add(new Rule(null, endpoint, rate));
+            } else {
+                rules.add(new Rule(endpoint.substring(0, space).toUpperCase(Locale.ROOT),
+                        endpoint.substring(space + 1).trim(), rate));
+            }
+        }
+        return rules;
+    }
+
+    private record Rule(String method, String pattern, double rate) {
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+
+/**
+ * Статистика FilmCache. Значения читаются из счетчиков кэша только при снятии метрик.
+ */
+@Component
+@RequiredArgsConstructor
+public class FilmCacheMetrics implements MeterBinder {
+    private final FilmCache cache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.cache.films.size", cache, FilmCache::size)
+                .description("Фильмов в кэше")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.films.requests", cache, FilmCache::getHits)
+                .description("Обращений к кэшу фильмов")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.films.requests", cache, FilmCache::getMisses)
+                .description("Обращений к кэшу фильмов")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.films.evictions", cache, FilmCache::getEvictions)
+                .description("Вытеснено из кэша фильмов")
+                .register(registry);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Добавляет к стандартной метрике http.server.requests тег handler с методом контроллера,
+ * чтобы время ответа можно было смотреть по методам, а не только по шаблонам URI.
+ */
+@Component
+public class HandlerObservationConvention extends DefaultServerRequestObservationConvention {
+    private static final String NONE = "none";
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        String name = handler instanceof HandlerMethod method ? RequestMetricsInterceptor.handlerName(method) : NONE;
+        return super.getLowCardinalityKeyValues(context).and(KeyValue.of("handler", name));
+    }
+}
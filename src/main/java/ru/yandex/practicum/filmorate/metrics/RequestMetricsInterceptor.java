@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Считает SQL-запросы и строки, которые понадобились для обработки одного HTTP-запроса, и публикует
+ * их по методам контроллеров: filmorate.request.statements и filmorate.request.rows. Рост числа
+ * запросов на один вызов показывает, где догрузка связанных данных разрастается.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+    private static final String ATTRIBUTE = RequestStatistics.class.getName();
+
+    private final MeterRegistry registry;
+    private final Map<String, HandlerMeters> meters = new ConcurrentHashMap<>();
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            RequestStatistics statistics = new RequestStatistics();
+            request.setAttribute(ATTRIBUTE, statistics);
+            RequestStatistics.attach(statistics);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        RequestStatistics.attach(null);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RequestStatistics.attach(null);
+        if (request.getAttribute(ATTRIBUTE) instanceof RequestStatistics statistics
+                && handler instanceof HandlerMethod method) {
+            HandlerMeters handlerMeters = meters.computeIfAbsent(handlerName(method), this::register);
+            handlerMeters.statements().record(statistics.getStatements());
+            handlerMeters.rows().record(statistics.getRows());
+        }
+    }
+
+    /**
+     * Короткое имя обработчика для тегов метрик, например "FilmController.findFilm".
+     */
+    public static String handlerName(HandlerMethod method) {
+        return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+    }
+
+    private HandlerMeters register(String handler) {
+        return new HandlerMeters(
+                DistributionSummary.builder("filmorate.request.statements")
+                        .description("SQL-запросов на один HTTP-запрос")
+                        .tag("handler", handler)
+                        .register(registry),
+                DistributionSummary.builder("filmorate.request.rows")
+                        .description("Строк, прочитанных или измененных за один HTTP-запрос")
+                        .baseUnit("rows")
+                        .tag("handler", handler)
+                        .register(registry));
+    }
+
+    private record HandlerMeters(DistributionSummary statements, DistributionSummary rows) {
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики SQL-запросов одного HTTP-запроса. Привязываются к потоку перехватчиком RequestMetricsInterceptor
+ * и переносятся в потоки параллельной догрузки, поэтому счетчики атомарные.
+ */
+public final class RequestStatistics {
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicLong rows = new AtomicLong();
+
+    public static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Привязывает счетчики к текущему потоку и возвращает прежние, чтобы их можно было восстановить.
+     */
+    public static RequestStatistics attach(RequestStatistics statistics) {
+        RequestStatistics previous = CURRENT.get();
+        if (statistics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics);
+        }
+        return previous;
+    }
+
+    public void recordStatement(long rowCount) {
+        statements.incrementAndGet();
+        rows.addAndGet(rowCount);
+    }
+
+    public int getStatements() {
+        return statements.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+}
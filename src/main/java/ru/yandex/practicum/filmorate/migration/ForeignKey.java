@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Внешний ключ текущей схемы, прочитанный из INFORMATION_SCHEMA. Нужен, чтобы снять ключ и вернуть его
+ * без знания имени: H2 называет безымянные ограничения сам (CONSTRAINT_xx).
+ */
+public record ForeignKey(String name, String table, List<String> columns,
+                         String refTable, List<String> refColumns, String updateRule, String deleteRule) {
+    private static final String FIND_ALL_QUERY = "SELECT rc.constraint_name, fk.table_name, " +
+            "fk.column_name, pk.table_name AS ref_table_name, pk.column_name AS ref_column_name, " +
+            "rc.update_rule, rc.delete_rule " +
+            "FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS rc " +
+            "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE fk ON fk.constraint_schema = rc.constraint_schema " +
+            "AND fk.constraint_name = rc.constraint_name " +
+            "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE pk ON pk.constraint_schema = rc.unique_constraint_schema " +
+            "AND pk.constraint_name = rc.unique_constraint_name " +
+            "AND pk.ordinal_position = fk.position_in_unique_constraint " +
+            "WHERE rc.constraint_schema = SCHEMA() " +
+            "ORDER BY rc.constraint_name, fk.ordinal_position";
+
+    public static List<ForeignKey> findAll(Connection connection) throws SQLException {
+        Map<String, ForeignKey> foreignKeys = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(FIND_ALL_QUERY)) {
+            while (rs.next()) {
+                String name = rs.getString("constraint_name");
+                ForeignKey foreignKey = foreignKeys.get(name);
+                if (foreignKey == null) {
+                    foreignKey = new ForeignKey(name, rs.getString("table_name"), new ArrayList<>(),
+                            rs.getString("ref_table_name"), new ArrayList<>(),
+                            rs.getString("update_rule"), rs.getString("delete_rule"));
+                    foreignKeys.put(name, foreignKey);
+                }
+                foreignKey.columns().add(rs.getString("column_name"));
+                foreignKey.refColumns().add(rs.getString("ref_column_name"));
+            }
+        }
+        return List.copyOf(foreignKeys.values());
+    }
+
+    public String dropSql() {
+        return "ALTER TABLE " + quote(table) + " DROP CONSTRAINT " + quote(name);
+    }
+
+    /**
+     * Без проверки (check = false) ключ возвращается с NOCHECK, и за согласованность строк отвечает
+     * вызывающий; с проверкой H2 отклоняет ключ, если есть висячие ссылки. H2 использует существующий
+     * индекс по столбцам ключа и не создает свой.
+     */
+    public String addSql(boolean check) {
+        return "ALTER TABLE " + quote(table) + " ADD CONSTRAINT " + quote(name)
+                + " FOREIGN KEY (" + join(columns) + ") REFERENCES " + quote(refTable) + " (" + join(refColumns)
+                + ") ON UPDATE " + updateRule + " ON DELETE " + deleteRule + (check ? "" : " NOCHECK");
+    }
+
+    static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private static String join(List<String> columns) {
+        return columns.stream().map(ForeignKey::quote).collect(Collectors.joining(", "));
+    }
+}
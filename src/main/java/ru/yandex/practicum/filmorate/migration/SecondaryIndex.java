@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Обычный (не уникальный и не первичный) индекс таблицы, прочитанный из INFORMATION_SCHEMA.
+ * Индексы, принадлежащие внешним ключам, сюда тоже попадают - их нужно снимать вместе с ключом.
+ */
+public record SecondaryIndex(String name, String table, List<String> columns) {
+    private static final String FIND_BY_TABLE_QUERY = "SELECT i.index_name, c.column_name, c.ordering_specification " +
+            "FROM INFORMATION_SCHEMA.INDEXES i " +
+            "JOIN INFORMATION_SCHEMA.INDEX_COLUMNS c ON c.index_schema = i.index_schema " +
+            "AND c.index_name = i.index_name " +
+            "WHERE i.table_schema = SCHEMA() AND i.table_name = ? AND i.index_type_name = 'INDEX' " +
+            "ORDER BY i.index_name, c.ordinal_position";
+
+    public static List<SecondaryIndex> findByTable(Connection connection, String table) throws SQLException {
+        Map<String, SecondaryIndex> indexes = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(FIND_BY_TABLE_QUERY)) {
+            statement.setString(1, table.toUpperCase());
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    SecondaryIndex index = indexes.computeIfAbsent(rs.getString("index_name"),
+                            name -> new SecondaryIndex(name, table.toUpperCase(), new ArrayList<>()));
+                    String column = ForeignKey.quote(rs.getString("column_name"));
+                    index.columns().add("DESC".equals(rs.getString("ordering_specification")) ? column + " DESC" : column);
+                }
+            }
+        }
+        return List.copyOf(indexes.values());
+    }
+
+    public String dropSql() {
+        return "DROP INDEX " + ForeignKey.quote(name);
+    }
+
+    public String createSql() {
+        return "CREATE INDEX " + ForeignKey.quote(name) + " ON " + ForeignKey.quote(table)
+                + " (" + String.join(", ", columns) + ")";
+    }
+}
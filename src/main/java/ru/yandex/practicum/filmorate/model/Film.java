@@ -23,5 +23,5 @@ public class Film {
     private int duration;
     private Rating mpa;
     private Set<Genre> genres = new HashSet<>();
-    private Set<Integer> likes = new HashSet<>();
+    private IntSet likes = new IntSet();
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Множество int на отсортированном массиве без упаковки в Integer.
+ * Реализует Set&lt;Integer&gt; для совместимости, но внутри хранит только примитивы;
+ * добавление по возрастанию (как при чтении из БД с ORDER BY) идёт за O(1).
+ * Как и HashSet, не потокобезопасно.
+ */
+@JsonSerialize(using = IntSet.Serializer.class)
+@JsonDeserialize(using = IntSet.Deserializer.class)
+public class IntSet extends AbstractSet<Integer> {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values;
+    private int size;
+
+    public IntSet() {
+        values = EMPTY;
+    }
+
+    public IntSet(int capacity) {
+        values = capacity == 0 ? EMPTY : new int[capacity];
+    }
+
+    public IntSet(IntSet other) {
+        values = Arrays.copyOf(other.values, other.size);
+        size = other.size;
+    }
+
+    public static IntSet of(int... values) {
+        IntSet set = new IntSet(values.length);
+        for (int value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    public boolean add(int value) {
+        if (size == 0 || value > values[size - 1]) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+            return true;
+        }
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos >= 0) {
+            return false;
+        }
+        int insertAt = -pos - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+
+    public boolean removeInt(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos < 0) {
+            return false;
+        }
+        removeAt(pos);
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public int[] toIntArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add(value.intValue());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer value && contains(value.intValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer value && removeInt(value);
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int next;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                return values[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                removeAt(last);
+                next = last;
+                last = -1;
+            }
+        };
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, Math.max(4, values.length * 2)));
+        }
+    }
+
+    private void removeAt(int pos) {
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+    }
+
+    public static class Serializer extends JsonSerializer<IntSet> {
+        @Override
+        public void serialize(IntSet set, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeArray(set.values, 0, set.size);
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<IntSet> {
+        @Override
+        public IntSet deserialize(JsonParser parser, DeserializationContext ctx) throws IOException {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                return (IntSet) ctx.handleUnexpectedToken(IntSet.class, parser);
+            }
+            IntSet set = new IntSet();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+                    return (IntSet) ctx.handleUnexpectedToken(IntSet.class, parser);
+                }
+                set.add(parser.getIntValue());
+            }
+            return set;
+        }
+    }
+}
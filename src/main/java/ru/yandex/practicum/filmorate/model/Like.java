@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.model;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Like {
+    @NotNull(message = "Id фильма должен быть указан")
+    @Positive
+    private Integer filmId;
+    @NotNull(message = "Id пользователя должен быть указан")
+    @Positive
+    private Integer userId;
+}
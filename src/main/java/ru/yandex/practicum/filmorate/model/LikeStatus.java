@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.model;
+
+public enum LikeStatus {
+    CREATED,
+    DUPLICATE,
+    UNKNOWN_FILM,
+    UNKNOWN_USER
+}
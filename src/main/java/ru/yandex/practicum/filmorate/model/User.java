@@ -5,8 +5,6 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @Data
 @EqualsAndHashCode(of = {"id"})
@@ -21,5 +19,5 @@ public class User {
     private String email;
     @PastOrPresent(message = "День рождения не может быть в будущем")
     private LocalDate birthday;
-    private Set<Integer> friends = new HashSet<>();
+    private IntSet friends = new IntSet();
 }
\ No newline at end of file
@@ -1,20 +1,31 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.dao.GenreDbStorage;
-import ru.yandex.practicum.filmorate.dao.RatingDbStorage;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.dao.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.index.EntityExistenceIndex;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmRecommendations;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.LikeStatus;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,65 +33,265 @@ import java.util.stream.Collectors;
 public class FilmService {
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
-    private final RatingDbStorage ratingStorage;
-    private final GenreDbStorage genreStorage;
+    private final ReferenceDataRegistry referenceData;
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmCache filmCache;
+    private final EntityExistenceIndex existenceIndex;
+    private final LikeMatrix likeMatrix;
+    private final FilmRecommendations recommendations;
+    private final LikeWriteBuffer likeBuffer;
+    private final Validator validator;
+    private final int importChunkSize;
 
     private static final LocalDate CINEMA_BIRTHDAY = LocalDate.of(1895, Month.DECEMBER, 28);
+    private static final int DEFAULT_PAGE_SIZE = 100;
 
-    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
-                       @Qualifier("userDbStorage") UserStorage userStorage,
-                       RatingDbStorage ratingStorage,
-                       GenreDbStorage genreStorage) {
+    public FilmService(FilmStorage filmStorage,
+                       UserStorage userStorage,
+                       ReferenceDataRegistry referenceData,
+                       FilmPopularityIndex popularityIndex,
+                       FilmCache filmCache,
+                       EntityExistenceIndex existenceIndex,
+                       LikeMatrix likeMatrix,
+                       FilmRecommendations recommendations,
+                       LikeWriteBuffer likeBuffer,
+                       Validator validator,
+                       @Value("${filmorate.films.import.chunk-size:1000}") int importChunkSize) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
-        this.ratingStorage = ratingStorage;
-        this.genreStorage = genreStorage;
+        this.referenceData = referenceData;
+        this.popularityIndex = popularityIndex;
+        this.filmCache = filmCache;
+        this.existenceIndex = existenceIndex;
+        this.likeMatrix = likeMatrix;
+        this.recommendations = recommendations;
+        this.likeBuffer = likeBuffer;
+        this.validator = validator;
+        this.importChunkSize = importChunkSize;
     }
 
     public Collection<Film> findAll() {
         log.info("Обрабатываем запрос на поиск всех фильмов");
-        return filmStorage.findAll();
+        LikeWriteBuffer.Overlay overlay = likeBuffer.snapshot();
+        return overlay.applyAll(filmStorage.findAll());
+    }
+
+    public Collection<Film> findPage(Integer after, Integer limit) {
+        log.info("Обрабатываем запрос на поиск страницы фильмов");
+        LikeWriteBuffer.Overlay overlay = likeBuffer.snapshot();
+        return overlay.applyAll(filmStorage.findPage(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_SIZE : limit));
+    }
+
+    public void streamAll(Consumer<Film> action) {
+        log.info("Обрабатываем запрос на потоковую выгрузку всех фильмов");
+        LikeWriteBuffer.Overlay overlay = likeBuffer.snapshot();
+        filmStorage.streamAll(film -> action.accept(overlay.apply(film)));
     }
 
     public Film findFilm(int id) {
         log.info("Обрабатываем запрос на поиск фильма (id): {}", id);
-        return filmStorage.findFilm(id);
+        return filmCache.get(id, filmId -> {
+            LikeWriteBuffer.Overlay overlay = likeBuffer.snapshot();
+            return overlay.apply(filmStorage.findFilm(filmId));
+        });
     }
 
     public Film create(Film film) {
         log.info("Обрабатываем запрос на добавление фильма");
         validationFilm(film);
-        return filmStorage.create(film);
+        Film created = filmStorage.create(film);
+        popularityIndex.addFilm(created.getId());
+        existenceIndex.addFilm(created.getId());
+        return created;
+    }
+
+    /**
+     * Импорт фильмов по мере чтения: проверенные фильмы копятся до filmorate.films.import.chunk-size
+     * и сохраняются пачкой в отдельной транзакции. Первая ошибка прерывает импорт, уже сохраненные пачки
+     * остаются в базе; в сообщении указан номер фильма и сколько фильмов сохранено.
+     */
+    public List<Integer> importFilms(Iterator<Film> films) {
+        log.info("Обрабатываем запрос на импорт фильмов");
+        List<Integer> ids = new ArrayList<>();
+        List<Film> chunk = new ArrayList<>(importChunkSize);
+        for (int position = 1; ; position++) {
+            Film film;
+            try {
+                if (!films.hasNext()) {
+                    break;
+                }
+                film = films.next();
+                validationImportedFilm(film);
+            } catch (ValidationException | NotFoundException e) {
+                throw new ValidationException("Фильм №" + position + ": " + e.getMessage()
+                        + ". Сохранено фильмов: " + ids.size());
+            }
+            chunk.add(film);
+            if (chunk.size() == importChunkSize) {
+                saveImportedChunk(chunk, ids);
+            }
+        }
+        saveImportedChunk(chunk, ids);
+        log.info("Импорт фильмов завершен, добавлено: {}", ids.size());
+        return ids;
     }
 
     public Film update(Film newFilm) {
         log.info("Обрабатываем запрос на обновление фильма");
         validationFilm(newFilm);
-        return filmStorage.update(newFilm);
+        Film updated = filmStorage.update(newFilm);
+        filmCache.invalidate(updated.getId());
+        return updated;
     }
 
     public void addLike(int id, int userId) {
         log.info("Обрабатываем запрос на выставление лайка фильму (id): {}, от пользователя (id): {}", id, userId);
-        if (userStorage.findUser(userId) != null && filmStorage.findFilm(id) != null) {
-            filmStorage.addLike(id, userId);
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireFilm(id);
+        if (likeBuffer.isEnabled()) {
+            if (bufferLike(id, userId, true)) {
+                onLikeAdded(id, userId);
+            }
+        } else if (filmStorage.addLike(id, userId)) {
+            likeMatrix.addLike(id, userId);
+            onLikeAdded(id, userId);
         }
     }
 
     public void removeLike(int id, int userId) {
         log.info("Обрабатываем запрос на удаление лайка фильму (id): {}, от пользователя (id): {}", id, userId);
-        if (userStorage.findUser(userId) != null && filmStorage.findFilm(id) != null) {
-            filmStorage.removeLike(id, userId);
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireFilm(id);
+        if (likeBuffer.isEnabled()) {
+            if (bufferLike(id, userId, false)) {
+                onLikeRemoved(id, userId);
+            }
+        } else if (filmStorage.removeLike(id, userId)) {
+            likeMatrix.removeLike(id, userId);
+            onLikeRemoved(id, userId);
         }
     }
 
+    public List<LikeResult> addLikes(List<Like> likes) {
+        log.info("Обрабатываем запрос на пакетное добавление лайков, количество: {}", likes.size());
+        Set<Integer> films = filmStorage.findExistingIds(likes.stream().map(Like::getFilmId).collect(Collectors.toSet()));
+        Set<Integer> users = userStorage.findExistingIds(likes.stream().map(Like::getUserId).collect(Collectors.toSet()));
+
+        LikeStatus[] statuses = new LikeStatus[likes.size()];
+        Set<Like> candidates = new LinkedHashSet<>();
+        for (int i = 0; i < likes.size(); i++) {
+            Like like = likes.get(i);
+            if (!films.contains(like.getFilmId())) {
+                statuses[i] = LikeStatus.UNKNOWN_FILM;
+            } else if (!users.contains(like.getUserId())) {
+                statuses[i] = LikeStatus.UNKNOWN_USER;
+            } else if (!candidates.add(like)) {
+                statuses[i] = LikeStatus.DUPLICATE;
+            }
+        }
+
+        Set<Like> created = new HashSet<>();
+        if (likeBuffer.isEnabled()) {
+            try {
+                for (Like like : candidates) {
+                    if (bufferLike(like.getFilmId(), like.getUserId(), true)) {
+                        created.add(like);
+                    }
+                }
+            } finally {
+                created.forEach(like -> onLikeAdded(like.getFilmId(), like.getUserId()));
+            }
+        } else {
+            created.addAll(filmStorage.addLikes(List.copyOf(candidates)));
+            created.forEach(like -> likeMatrix.addLike(like.getFilmId(), like.getUserId()));
+            created.forEach(like -> onLikeAdded(like.getFilmId(), like.getUserId()));
+        }
+
+        List<LikeResult> results = new ArrayList<>(likes.size());
+        for (int i = 0; i < likes.size(); i++) {
+            Like like = likes.get(i);
+            LikeStatus status = statuses[i];
+            if (status == null) {
+                status = created.contains(like) ? LikeStatus.CREATED : LikeStatus.DUPLICATE;
+            }
+            results.add(new LikeResult(like.getFilmId(), like.getUserId(), status));
+        }
+        return results;
+    }
+
+    public List<Film> getRecommendations(int userId, int count) {
+        log.info("Обрабатываем запрос на рекомендации фильмов для пользователя (id): {}", userId);
+        existenceIndex.requireUser(userId);
+        LikeWriteBuffer.Overlay overlay = likeBuffer.snapshot();
+        return overlay.applyAll(filmStorage.findFilms(
+                Arrays.stream(recommendations.recommend(userId, count)).boxed().toList()));
+    }
+
     public Collection<Film> getPopularFilms(Integer count) {
         log.info("Обрабатываем запрос на вывод популярных фильмов");
-        return List.copyOf(filmStorage.findAll().stream()
-                .sorted((f1, f2) -> Integer.compare(f2.getLikes().size(), f1.getLikes().size()))
-                .limit(count)
-                .toList());
+        LikeWriteBuffer.Overlay overlay = likeBuffer.snapshot();
+        if (popularityIndex.isEnabled()) {
+            return overlay.applyAll(filmStorage.findFilms(popularityIndex.findTop(count)));
+        }
+        return overlay.applyAll(filmStorage.findPopular(count));
+    }
+
+    /**
+     * Лайк через отложенную запись. Матрица решает, меняет ли событие состояние; если событие
+     * не принято журналом (очередь переполнена, ошибка записи), изменение матрицы откатывается,
+     * чтобы повтор запроса не оказался пустым.
+     */
+    private boolean bufferLike(int id, int userId, boolean added) {
+        if (!(added ? likeMatrix.addLike(id, userId) : likeMatrix.removeLike(id, userId))) {
+            return false;
+        }
+        try {
+            if (added) {
+                likeBuffer.addLike(id, userId);
+            } else {
+                likeBuffer.removeLike(id, userId);
+            }
+        } catch (RuntimeException e) {
+            if (added) {
+                likeMatrix.removeLike(id, userId);
+            } else {
+                likeMatrix.addLike(id, userId);
+            }
+            throw e;
+        }
+        return true;
+    }
+
+    private void onLikeAdded(int id, int userId) {
+        filmCache.invalidate(id);
+        popularityIndex.incrementLikes(id);
+        recommendations.invalidate(userId);
     }
 
+    private void onLikeRemoved(int id, int userId) {
+        filmCache.invalidate(id);
+        popularityIndex.decrementLikes(id);
+        recommendations.invalidate(userId);
+    }
+
+    private void saveImportedChunk(List<Film> chunk, List<Integer> ids) {
+        for (Film film : filmStorage.createAll(chunk)) {
+            popularityIndex.addFilm(film.getId());
+            existenceIndex.addFilm(film.getId());
+            ids.add(film.getId());
+        }
+        chunk.clear();
+    }
+
+    private void validationImportedFilm(Film film) {
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .collect(Collectors.joining("; ")));
+        }
+        validationFilm(film);
+    }
 
     private void validationFilm(Film film) {
         log.info("Проводим проверку валидности");
@@ -90,20 +301,18 @@ public class FilmService {
         }
 
         if (film.getMpa() != null) {
-            ratingStorage.findRating(film.getMpa().getId());
+            Integer ratingId = film.getMpa().getId();
+            if (ratingId == null || referenceData.findRating(ratingId) == null) {
+                throw new NotFoundException("Указанный рейтинг не найден!");
+            }
         }
 
         if (film.getGenres() != null && !film.getGenres().isEmpty()) {
             Set<Integer> genreId = film.getGenres().stream()
                     .map(Genre::getId)
+                    .filter(id -> id == null || referenceData.findGenre(id) == null)
                     .collect(Collectors.toSet());
 
-            Set<Integer> validGenreIds = genreStorage.findAllGenre().stream()
-                    .map(Genre::getId)
-                    .collect(Collectors.toSet());
-
-            genreId.removeAll(validGenreIds);
-
             if (!genreId.isEmpty()) {
                 throw new NotFoundException("Указаны не существующие жанры: " + genreId);
             }
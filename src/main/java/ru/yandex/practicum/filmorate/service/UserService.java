@@ -1,24 +1,37 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.index.EntityExistenceIndex;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.FriendSuggestions;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class UserService {
     private final UserStorage storage;
+    private final EntityExistenceIndex existenceIndex;
+    private final FriendGraph friendGraph;
+    private final FriendSuggestions friendSuggestions;
 
-    public UserService(@Qualifier("userDbStorage") UserStorage userStorage) {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    public UserService(UserStorage userStorage,
+                       EntityExistenceIndex existenceIndex,
+                       FriendGraph friendGraph,
+                       FriendSuggestions friendSuggestions) {
         this.storage = userStorage;
+        this.existenceIndex = existenceIndex;
+        this.friendGraph = friendGraph;
+        this.friendSuggestions = friendSuggestions;
     }
 
     public Collection<User> findAll() {
@@ -26,6 +39,11 @@ public class UserService {
         return storage.findAll();
     }
 
+    public Collection<User> findPage(Integer after, Integer limit) {
+        log.info("Обрабатываем запрос на поиск страницы пользователей");
+        return storage.findPage(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_SIZE : limit);
+    }
+
     public User findUser(int id) {
         log.info("Обрабатываем запрос на поиск пользователя");
         return storage.findUser(id);
@@ -33,7 +51,9 @@ public class UserService {
 
     public User create(User user) {
         log.info("Обрабатываем запрос на добавление нового пользователя");
-        return storage.create(user);
+        User created = storage.create(user);
+        existenceIndex.addUser(created.getId());
+        return created;
     }
 
     public User update(User newUser) {
@@ -43,32 +63,41 @@ public class UserService {
 
     public void addFriend(int id, int friendId) {
         log.info("Обрабатываем запрос на добавление в друзья");
-        if (storage.findUser(id) != null && storage.findUser(friendId) != null) {
-            storage.addFriend(id, friendId);
-        }
+        existenceIndex.requireUser(id);
+        existenceIndex.requireUser(friendId);
+        storage.addFriend(id, friendId);
+        friendGraph.addFriend(id, friendId);
     }
 
     public void removeFriend(int id, int friendId) {
         log.info("Обрабатываем запрос на удаление из друзей");
-        if (storage.findUser(id) != null && storage.findUser(friendId) != null) {
-            storage.removeFriend(id, friendId);
-        }
+        existenceIndex.requireUser(id);
+        existenceIndex.requireUser(friendId);
+        storage.removeFriend(id, friendId);
+        friendGraph.removeFriend(id, friendId);
     }
 
     public Collection<User> findFriends(int id) {
         log.info("Обрабатываем запрос на поиск всех друзей пользователя");
-        if (storage.findUser(id) != null) {
-            return List.copyOf(storage.findFriends(id).stream()
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList()));
-        } else {
-            throw new NotFoundException("Пользователь с id " + id + " не найден");
-        }
-
+        existenceIndex.requireUser(id);
+        return storage.findUsers(friendGraph.friends(id));
     }
 
     public Collection<User> findCommonFriends(int id, int otherId) {
         log.info("Обрабатываем запрос на поиск общих друзей между пользователями");
-        return storage.findCommonFriends(id, otherId);
+        return storage.findUsers(friendGraph.commonFriends(id, otherId));
+    }
+
+    public List<User> findFriendSuggestions(int id, int count) {
+        log.info("Обрабатываем запрос на подбор возможных друзей пользователя (id): {}", id);
+        existenceIndex.requireUser(id);
+        int[] ids = friendSuggestions.suggest(id, count);
+        Map<Integer, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            rank.put(ids[i], i);
+        }
+        return storage.findUsers(ids).stream()
+                .sorted(Comparator.comparing(user -> rank.get(user.getId())))
+                .toList();
     }
-}
\ No newline at end of file
+}
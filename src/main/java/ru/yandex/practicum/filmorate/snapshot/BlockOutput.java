@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Запись снимка в FileChannel. Строки таблицы копятся в буфере и уходят в файл блоками
+ * [число строк][длина][CRC32C][данные] примерно по BLOCK_SIZE байт; конец таблицы - блок без строк.
+ */
+class BlockOutput implements Closeable {
+    static final int BLOCK_SIZE = 1 << 20;
+    static final int BLOCK_HEADER_SIZE = 12;
+
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+    private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+    private ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+    private int rows;
+
+    BlockOutput(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Заголовок файла или таблицы: пишется мимо блоков, сразу в канал.
+     */
+    void writeRaw(ByteBuffer bytes) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    void putByte(int value) {
+        ensure(1).put((byte) value);
+    }
+
+    void putInt(int value) {
+        ensure(4).putInt(value);
+    }
+
+    /**
+     * Строка: длина в UTF-8 (два байта без знака), затем сами байты.
+     */
+    void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Строка длиннее 65535 байт не помещается в снимок");
+        }
+        ensure(2 + bytes.length).putShort((short) bytes.length).put(bytes);
+    }
+
+    void endRow() throws IOException {
+        rows++;
+        if (block.position() >= BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    void endTable() throws IOException {
+        flushBlock();
+        writeBlockHeader(0, 0, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        block.flip();
+        crc.reset();
+        crc.update(block.duplicate());
+        writeBlockHeader(rows, block.remaining(), (int) crc.getValue());
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+        block.clear();
+        rows = 0;
+    }
+
+    private void writeBlockHeader(int rowCount, int length, int checksum) throws IOException {
+        header.clear();
+        header.putInt(rowCount).putInt(length).putInt(checksum);
+        writeRaw(header);
+    }
+
+    private ByteBuffer ensure(int bytes) {
+        if (block.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(block.capacity() * 2, block.position() + bytes));
+            block.flip();
+            grown.put(block);
+            block = grown;
+        }
+        return block;
+    }
+}
@@ -0,0 +1,521 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.DataConflictException;
+import ru.yandex.practicum.filmorate.migration.ForeignKey;
+import ru.yandex.practicum.filmorate.migration.SecondaryIndex;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Двоичный снимок всей базы: справочники, пользователи, фильмы, жанры фильмов, лайки и дружба.
+ * Формат (big-endian): магическое число FLMS, версия, число таблиц; для каждой таблицы - имя, столбцы
+ * с типами и блоки строк (см. BlockOutput). Строка - битовая маска NULL и значения остальных столбцов:
+ * INT - 4 байта, VARCHAR - длина и UTF-8, DATE - номер дня от 1970-01-01.
+ * <p>
+ * Снимок пишется в одной транзакции чтения через временный файл. Восстановление при старте включается
+ * свойством filmorate.snapshot.restore и выполняется колбэком Flyway после миграций (SnapshotRestoreCallback),
+ * то есть до создания хранилищ, индексов и кэшей. Сначала снимок целиком проверяется без изменения базы
+ * (см. verify), затем внешние ключи и вторичные индексы снимаются, таблицы очищаются и заполняются пачками,
+ * индексы строятся заново, а ключи возвращаются с проверкой строк - так быстрее, чем обновлять индексы
+ * при каждой вставке. После проверки загрузку может прервать только сама база, например нарушение
+ * уникальности составного ключа; тогда запуск прерывается, и базу нужно восстановить заново.
+ */
+@Component
+@Slf4j
+public class DatabaseSnapshot {
+    private static final int MAGIC = 0x464C4D53;
+    private static final int VERSION = 1;
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private static final List<Table> TABLES = List.of(
+            new Table("Rating", "rating_id", "ORDER BY rating_id"),
+            new Table("Genres", "genre_id", "ORDER BY genre_id"),
+            new Table("Users", "user_id", "ORDER BY user_id"),
+            new Table("Films", "film_id", "ORDER BY film_id"),
+            new Table("Films_Genres", null, "ORDER BY 1, 2"),
+            new Table("Likes", null, "ORDER BY 1, 2"),
+            new Table("Friends", null, "ORDER BY 1, 2"));
+
+    private final DataSource dataSource;
+
+    public DatabaseSnapshot(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Записывает снимок в target и возвращает число строк по таблицам.
+     */
+    public Map<String, Long> dump(Path target) throws IOException, SQLException {
+        long start = System.nanoTime();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (BlockOutput out = new BlockOutput(FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+                out.writeRaw(ByteBuffer.allocate(8).putInt(MAGIC).putShort((short) VERSION)
+                        .putShort((short) TABLES.size()));
+                for (Table table : TABLES) {
+                    counts.put(table.name(), dumpTable(connection, table, out));
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Снимок базы записан в {} за {} мс, {} байт: {}", target,
+                (System.nanoTime() - start) / 1_000_000, Files.size(target), counts);
+        return counts;
+    }
+
+    /**
+     * Заменяет содержимое базы снимком из source и возвращает число строк по таблицам.
+     * Индексы и кэши приложения не перестраиваются.
+     */
+    public Map<String, Long> restore(Path source) throws IOException, SQLException {
+        long start = System.nanoTime();
+        try (MappedInput in = new MappedInput(FileChannel.open(source, StandardOpenOption.READ));
+             Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            List<ForeignKey> foreignKeys = ForeignKey.findAll(connection);
+            List<Map<String, Column>> schema = new ArrayList<>();
+            for (Table table : TABLES) {
+                schema.add(columns(connection, table));
+            }
+            Map<String, Long> counts = verify(in, source, schema, foreignKeys);
+            log.info("Снимок {} проверен за {} мс", source, (System.nanoTime() - start) / 1_000_000);
+
+            for (ForeignKey foreignKey : foreignKeys) {
+                execute(connection, foreignKey.dropSql());
+            }
+            List<SecondaryIndex> indexes = new ArrayList<>();
+            for (Table table : TABLES) {
+                indexes.addAll(SecondaryIndex.findByTable(connection, table.name()));
+            }
+            for (SecondaryIndex index : indexes) {
+                execute(connection, index.dropSql());
+            }
+            try {
+                for (Table table : TABLES.reversed()) {
+                    execute(connection, "TRUNCATE TABLE " + table.name());
+                }
+                connection.commit();
+                in.rewind();
+                readHeader(in, source);
+                for (int i = 0; i < TABLES.size(); i++) {
+                    restoreTable(connection, TABLES.get(i), readColumns(in, TABLES.get(i), schema.get(i)), in);
+                }
+            } catch (IOException | SQLException | RuntimeException e) {
+                try {
+                    rebuild(connection, indexes, foreignKeys);
+                } catch (SQLException | RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            rebuild(connection, indexes, foreignKeys);
+            log.info("База восстановлена из {} за {} мс: {}", source, (System.nanoTime() - start) / 1_000_000, counts);
+            return counts;
+        }
+    }
+
+    /**
+     * Полный проход по снимку без изменения базы: заголовок, порядок таблиц, имена, типы и обязательность
+     * столбцов против схемы, CRC и границы строк каждого блока, уникальность и наличие значений, на которые
+     * ссылаются внешние ключи из одного столбца (таблица-родитель в снимке всегда раньше).
+     */
+    private Map<String, Long> verify(MappedInput in, Path source, List<Map<String, Column>> schema,
+                                     List<ForeignKey> foreignKeys) throws IOException {
+        readHeader(in, source);
+        Map<String, KeySet> keys = new HashMap<>();
+        for (ForeignKey foreignKey : foreignKeys) {
+            if (foreignKey.columns().size() == 1
+                    && tableIndex(foreignKey.refTable()) >= 0
+                    && tableIndex(foreignKey.refTable()) < tableIndex(foreignKey.table())) {
+                keys.put(key(foreignKey.refTable(), foreignKey.refColumns().getFirst()), new KeySet());
+            }
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int t = 0; t < TABLES.size(); t++) {
+            Table table = TABLES.get(t);
+            Columns columns = readColumns(in, table, schema.get(t));
+            int count = columns.names().length;
+            KeySet[] collect = new KeySet[count];
+            KeySet[] check = new KeySet[count];
+            ForeignKey[] checkedBy = new ForeignKey[count];
+            for (int i = 0; i < count; i++) {
+                if (columns.types()[i] == ColumnType.INT) {
+                    collect[i] = keys.get(key(table.name(), columns.names()[i]));
+                }
+            }
+            for (ForeignKey foreignKey : foreignKeys) {
+                KeySet parent = keys.get(key(foreignKey.refTable(), foreignKey.refColumns().getFirst()));
+                if (parent == null || !foreignKey.table().equalsIgnoreCase(table.name())) {
+                    continue;
+                }
+                for (int i = 0; i < count; i++) {
+                    if (columns.names()[i].equalsIgnoreCase(foreignKey.columns().getFirst())
+                            && columns.types()[i] == ColumnType.INT) {
+                        check[i] = parent;
+                        checkedBy[i] = foreignKey;
+                    }
+                }
+            }
+
+            long rows = 0;
+            MappedInput.Block block;
+            while ((block = in.readBlock()) != null) {
+                ByteBuffer data = block.data();
+                try {
+                    for (int row = 0; row < block.rows(); row++) {
+                        int nullsOffset = data.position();
+                        data.position(nullsOffset + (count + 7) / 8);
+                        for (int i = 0; i < count; i++) {
+                            if ((data.get(nullsOffset + (i >> 3)) & (1 << (i & 7))) != 0) {
+                                if (!columns.nullable()[i]) {
+                                    throw new DataConflictException("Снимок содержит NULL в обязательном столбце "
+                                            + table.name() + "." + columns.names()[i]);
+                                }
+                                continue;
+                            }
+                            switch (columns.types()[i]) {
+                                case INT -> {
+                                    int value = data.getInt();
+                                    if (collect[i] != null && !collect[i].add(value)) {
+                                        throw new DataConflictException("Снимок содержит повторяющийся ключ "
+                                                + table.name() + "." + columns.names()[i] + " = " + value);
+                                    }
+                                    if (check[i] != null && !check[i].contains(value)) {
+                                        throw new DataConflictException("Снимок нарушает внешний ключ "
+                                                + checkedBy[i].name() + ": " + table.name() + "." + columns.names()[i]
+                                                + " = " + value + " отсутствует в " + checkedBy[i].refTable());
+                                    }
+                                }
+                                case VARCHAR -> {
+                                    int length = Short.toUnsignedInt(data.getShort());
+                                    data.position(data.position() + length);
+                                }
+                                case DATE -> data.getInt();
+                            }
+                        }
+                    }
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    throw new DataConflictException("Снимок поврежден: строки выходят за границы блока таблицы "
+                            + table.name());
+                }
+                if (data.hasRemaining()) {
+                    throw new DataConflictException("Снимок поврежден: лишние байты в блоке таблицы " + table.name());
+                }
+                rows += block.rows();
+            }
+            counts.put(table.name(), rows);
+        }
+        if (!in.atEnd()) {
+            throw new DataConflictException("Снимок поврежден: данные после последней таблицы");
+        }
+        return counts;
+    }
+
+    private static void readHeader(MappedInput in, Path source) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new DataConflictException("Файл " + source + " не является снимком базы");
+        }
+        int version = in.readShort();
+        if (version != VERSION) {
+            throw new DataConflictException("Неподдерживаемая версия снимка: " + version);
+        }
+        int tableCount = in.readShort();
+        if (tableCount != TABLES.size()) {
+            throw new DataConflictException("Снимок содержит " + tableCount + " таблиц, ожидалось " + TABLES.size());
+        }
+    }
+
+    /**
+     * Заголовок таблицы из снимка: имя должно совпадать с ожидаемым, набор столбцов и их типы - со схемой.
+     */
+    private static Columns readColumns(MappedInput in, Table table, Map<String, Column> schema) throws IOException {
+        String name = in.readName();
+        if (!name.equalsIgnoreCase(table.name())) {
+            throw new DataConflictException("Снимок поврежден: ожидалась таблица " + table.name() + ", найдена "
+                    + name);
+        }
+        int count = in.readByte();
+        String[] names = new String[count];
+        ColumnType[] types = new ColumnType[count];
+        boolean[] nullable = new boolean[count];
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            names[i] = in.readName();
+            types[i] = ColumnType.of(in.readByte());
+            Column column = schema.get(names[i].toUpperCase());
+            if (!COLUMN_NAME.matcher(names[i]).matches() || column == null || !seen.add(names[i].toUpperCase())) {
+                throw new DataConflictException("Столбец " + table.name() + "." + names[i]
+                        + " из снимка отсутствует в базе или повторяется");
+            }
+            if (column.type() != types[i]) {
+                throw new DataConflictException("Столбец " + table.name() + "." + names[i] + " в снимке имеет тип "
+                        + types[i] + ", в базе - " + column.type());
+            }
+            nullable[i] = column.nullable();
+        }
+        if (seen.size() != schema.size()) {
+            throw new DataConflictException("В снимке таблицы " + table.name() + " не хватает столбцов: "
+                    + schema.keySet().stream().filter(column -> !seen.contains(column)).toList());
+        }
+        return new Columns(names, types, nullable);
+    }
+
+    private static Map<String, Column> columns(Connection connection, Table table) throws SQLException {
+        Map<String, Column> columns = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT * FROM " + table.name() + " WHERE FALSE")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                columns.put(meta.getColumnName(i).toUpperCase(), new Column(
+                        ColumnType.of(table.name(), meta.getColumnName(i), meta.getColumnType(i)),
+                        meta.isNullable(i) != ResultSetMetaData.columnNoNulls));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Индексы строятся заново, внешние ключи возвращаются с проверкой строк: висячая ссылка,
+     * пропущенная проверкой снимка (например, по составному ключу), прерывает восстановление.
+     */
+    private static void rebuild(Connection connection, List<SecondaryIndex> indexes,
+                                List<ForeignKey> foreignKeys) throws SQLException {
+        for (SecondaryIndex index : indexes) {
+            execute(connection, index.createSql());
+        }
+        for (ForeignKey foreignKey : foreignKeys) {
+            execute(connection, foreignKey.addSql(true));
+        }
+        connection.commit();
+    }
+
+    private static int tableIndex(String name) {
+        for (int i = 0; i < TABLES.size(); i++) {
+            if (TABLES.get(i).name().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String key(String table, String column) {
+        return (table + "." + column).toUpperCase();
+    }
+
+    private long dumpTable(Connection connection, Table table, BlockOutput out) throws IOException, SQLException {
+        long rows = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT * FROM " + table.name() + " " + table.orderBy())) {
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = meta.getColumnCount();
+            ColumnType[] types = new ColumnType[columns];
+            byte[][] names = new byte[columns + 1][];
+            names[0] = table.name().getBytes(StandardCharsets.UTF_8);
+            int headerSize = 2 + names[0].length + 1;
+            for (int i = 0; i < columns; i++) {
+                types[i] = ColumnType.of(table.name(), meta.getColumnName(i + 1), meta.getColumnType(i + 1));
+                names[i + 1] = meta.getColumnName(i + 1).getBytes(StandardCharsets.UTF_8);
+                headerSize += 2 + names[i + 1].length + 1;
+            }
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            header.putShort((short) names[0].length).put(names[0]).put((byte) columns);
+            for (int i = 0; i < columns; i++) {
+                header.putShort((short) names[i + 1].length).put(names[i + 1]).put(types[i].code);
+            }
+            out.writeRaw(header);
+
+            Object[] values = new Object[columns];
+            byte[] nulls = new byte[(columns + 7) / 8];
+            while (rs.next()) {
+                Arrays.fill(nulls, (byte) 0);
+                for (int i = 0; i < columns; i++) {
+                    values[i] = switch (types[i]) {
+                        case INT -> rs.getObject(i + 1, Integer.class);
+                        case VARCHAR -> rs.getString(i + 1);
+                        case DATE -> rs.getObject(i + 1, LocalDate.class);
+                    };
+                    if (values[i] == null) {
+                        nulls[i >> 3] |= (byte) (1 << (i & 7));
+                    }
+                }
+                for (byte mask : nulls) {
+                    out.putByte(mask);
+                }
+                for (int i = 0; i < columns; i++) {
+                    switch (values[i]) {
+                        case null -> {
+                        }
+                        case Integer value -> out.putInt(value);
+                        case String value -> out.putString(value);
+                        case LocalDate value -> out.putInt((int) value.toEpochDay());
+                        default -> throw new IllegalStateException();
+                    }
+                }
+                out.endRow();
+                rows++;
+            }
+        }
+        out.endTable();
+        return rows;
+    }
+
+    private long restoreTable(Connection connection, Table table, Columns header, MappedInput in)
+            throws IOException, SQLException {
+        String[] names = header.names();
+        ColumnType[] types = header.types();
+        int columns = names.length;
+        String insert = "INSERT INTO " + table.name() + " (" + String.join(", ", names) + ") "
+                + (table.identity() == null ? "" : "OVERRIDING SYSTEM VALUE ")
+                + "VALUES (" + "?, ".repeat(columns - 1) + "?)";
+
+        long rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(insert)) {
+            int pending = 0;
+            MappedInput.Block block;
+            while ((block = in.readBlock()) != null) {
+                ByteBuffer data = block.data();
+                for (int row = 0; row < block.rows(); row++) {
+                    int nullsOffset = data.position();
+                    data.position(nullsOffset + (columns + 7) / 8);
+                    for (int i = 0; i < columns; i++) {
+                        if ((data.get(nullsOffset + (i >> 3)) & (1 << (i & 7))) != 0) {
+                            statement.setNull(i + 1, types[i].sqlType);
+                            continue;
+                        }
+                        switch (types[i]) {
+                            case INT -> statement.setInt(i + 1, data.getInt());
+                            case VARCHAR -> statement.setString(i + 1, MappedInput.readString(data));
+                            case DATE -> statement.setObject(i + 1, LocalDate.ofEpochDay(data.getInt()));
+                        }
+                    }
+                    statement.addBatch();
+                    rows++;
+                    if (++pending == INSERT_BATCH_SIZE) {
+                        statement.executeBatch();
+                        connection.commit();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        }
+        if (table.identity() != null) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(" + table.identity() + "), 0) + 1 FROM "
+                         + table.name())) {
+                rs.next();
+                statement.execute("ALTER TABLE " + table.name() + " ALTER COLUMN " + table.identity()
+                        + " RESTART WITH " + rs.getLong(1));
+            }
+        }
+        connection.commit();
+        return rows;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private record Table(String name, String identity, String orderBy) {
+    }
+
+    private record Column(ColumnType type, boolean nullable) {
+    }
+
+    private record Columns(String[] names, ColumnType[] types, boolean[] nullable) {
+    }
+
+    /**
+     * Значения столбца, на который ссылаются внешние ключи: битовая карта для неотрицательных и множество
+     * для отрицательных.
+     */
+    private static final class KeySet {
+        private final BitSet positive = new BitSet();
+        private final Set<Integer> negative = new HashSet<>();
+
+        boolean add(int value) {
+            if (value < 0) {
+                return negative.add(value);
+            }
+            boolean added = !positive.get(value);
+            positive.set(value);
+            return added;
+        }
+
+        boolean contains(int value) {
+            return value < 0 ? negative.contains(value) : positive.get(value);
+        }
+    }
+
+    private enum ColumnType {
+        INT(1, Types.INTEGER), VARCHAR(2, Types.VARCHAR), DATE(3, Types.DATE);
+
+        private final byte code;
+        private final int sqlType;
+
+        ColumnType(int code, int sqlType) {
+            this.code = (byte) code;
+            this.sqlType = sqlType;
+        }
+
+        private static ColumnType of(int code) {
+            for (ColumnType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new DataConflictException("Неизвестный тип столбца в снимке: " + code);
+        }
+
+        private static ColumnType of(String table, String column, int sqlType) {
+            return switch (sqlType) {
+                case Types.INTEGER -> INT;
+                case Types.VARCHAR -> VARCHAR;
+                case Types.DATE -> DATE;
+                default -> throw new DataConflictException("Столбец " + table + "." + column
+                        + " не поддерживается снимком, тип " + sqlType);
+            };
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import ru.yandex.practicum.filmorate.exception.DataConflictException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Чтение снимка через отображение файла в память окнами до WINDOW_SIZE байт. Блоки строк
+ * отдаются срезами окна без копирования, их CRC32C проверяется до разбора.
+ */
+class MappedInput implements Closeable {
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CRC32C crc = new CRC32C();
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    MappedInput(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    int readShort() throws IOException {
+        return Short.toUnsignedInt(slice(2).getShort());
+    }
+
+    int readByte() throws IOException {
+        return Byte.toUnsignedInt(slice(1).get());
+    }
+
+    int readInt() throws IOException {
+        return slice(4).getInt();
+    }
+
+    String readName() throws IOException {
+        ByteBuffer bytes = slice(readShort());
+        return decode(bytes, bytes.remaining());
+    }
+
+    /**
+     * Следующий блок строк или null, если таблица закончилась.
+     */
+    Block readBlock() throws IOException {
+        int rows = readInt();
+        int length = readInt();
+        int checksum = readInt();
+        if (rows == 0) {
+            return null;
+        }
+        ByteBuffer data = slice(length);
+        crc.reset();
+        crc.update(data.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new DataConflictException("Снимок поврежден: не сходится контрольная сумма блока на позиции "
+                    + (position - length));
+        }
+        return new Block(rows, data);
+    }
+
+    boolean atEnd() {
+        return position == size;
+    }
+
+    /**
+     * Возврат к началу файла для повторного прохода; текущее окно отображения сохраняется.
+     */
+    void rewind() {
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Строка внутри блока: длина (два байта без знака) и UTF-8.
+     */
+    static String readString(ByteBuffer data) {
+        return decode(data, Short.toUnsignedInt(data.getShort()));
+    }
+
+    private static String decode(ByteBuffer data, int length) {
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer slice(int length) throws IOException {
+        if (length < 0) {
+            throw new DataConflictException("Снимок поврежден: отрицательная длина " + length + " на позиции " + position);
+        }
+        if (position + length > size) {
+            throw new DataConflictException("Снимок обрезан: ожидалось еще " + length + " байт на позиции " + position);
+        }
+        if (window == null || position < windowStart || position + length > windowStart + window.capacity()) {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(size - position, Math.max(WINDOW_SIZE, length)));
+        }
+        ByteBuffer slice = window.slice((int) (position - windowStart), length);
+        position += length;
+        return slice;
+    }
+
+    record Block(int rows, ByteBuffer data) {
+    }
+}
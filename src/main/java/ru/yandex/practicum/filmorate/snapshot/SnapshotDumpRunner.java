@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Снятие снимка при запуске: java -jar filmorate.jar --filmorate.snapshot.dump=filmorate.snap
+ * [--filmorate.snapshot.exit=true]. Восстановление - --filmorate.snapshot.restore=filmorate.snap.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.snapshot.dump")
+public class SnapshotDumpRunner implements ApplicationRunner {
+    private final DatabaseSnapshot snapshot;
+    private final ConfigurableApplicationContext context;
+    private final Path target;
+    private final boolean exit;
+
+    public SnapshotDumpRunner(DatabaseSnapshot snapshot,
+                              ConfigurableApplicationContext context,
+                              @Value("${filmorate.snapshot.dump}") String target,
+                              @Value("${filmorate.snapshot.exit:false}") boolean exit) {
+        this.snapshot = snapshot;
+        this.context = context;
+        this.target = Path.of(target);
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        snapshot.dump(target);
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.DataConflictException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+
+/**
+ * Восстановление базы из снимка при запуске: java -jar filmorate.jar --filmorate.snapshot.restore=filmorate.snap.
+ * Выполняется после миграций Flyway, поэтому все, что Spring Boot создает после инициализации базы
+ * (JdbcTemplate, хранилища, индексы и кэши), видит уже восстановленные данные.
+ * Журнал отложенных лайков относится к прежней базе, поэтому после восстановления он не проигрывается:
+ * непустой журнал переносится рядом с суффиксом .discarded.
+ */
+@Component
+@Slf4j
+public class SnapshotRestoreCallback implements Callback {
+    private final DatabaseSnapshot snapshot;
+    private final String restoreFrom;
+    private final Path likesJournal;
+
+    public SnapshotRestoreCallback(DatabaseSnapshot snapshot,
+                                   @Value("${filmorate.snapshot.restore:}") String restoreFrom,
+                                   @Value("${filmorate.likes.write-behind.journal:./db/likes.journal}") String likesJournal) {
+        this.snapshot = snapshot;
+        this.restoreFrom = restoreFrom;
+        this.likesJournal = Path.of(likesJournal);
+    }
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.AFTER_MIGRATE && !restoreFrom.isBlank();
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return false;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        try {
+            snapshot.restore(Path.of(restoreFrom));
+            discardLikesJournal();
+        } catch (IOException | SQLException e) {
+            throw new DataConflictException("Не удалось восстановить базу из снимка " + restoreFrom + ": "
+                    + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "snapshotRestore";
+    }
+
+    private void discardLikesJournal() throws IOException {
+        if (!Files.exists(likesJournal)) {
+            return;
+        }
+        if (Files.size(likesJournal) == 0) {
+            Files.delete(likesJournal);
+            return;
+        }
+        Path discarded = likesJournal.resolveSibling(likesJournal.getFileName() + ".discarded");
+        Files.move(likesJournal, discarded, StandardCopyOption.REPLACE_EXISTING);
+        log.warn("Журнал лайков записан до восстановления снимка и не будет проигран, сохранен в {}", discarded);
+    }
+}
@@ -1,19 +1,48 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.util.IntPairConsumer;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public interface FilmStorage {
     Collection<Film> findAll();
 
+    void streamAll(Consumer<Film> action);
+
     Film findFilm(int id);
 
+    List<Film> findFilms(List<Integer> ids);
+
+    List<Film> findPage(int after, int limit);
+
+    List<Film> findPopular(int count);
+
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film newFilm);
 
-    void addLike(int id, int userId);
+    boolean addLike(int id, int userId);
+
+    boolean removeLike(int id, int userId);
+
+    List<Like> addLikes(List<Like> likes);
+
+    List<Like> removeLikes(List<Like> likes);
+
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
+    void forEachId(IntConsumer action);
+
+    void forEachLike(IntPairConsumer action);
 
-    void removeLike(int id, int userId);
+    Map<Integer, Integer> countLikes();
 }
\ No newline at end of file
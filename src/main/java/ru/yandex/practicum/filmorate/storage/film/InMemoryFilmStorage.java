@@ -1,40 +1,115 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.IntSet;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntPairConsumer;
 
 import java.time.LocalDate;
 import java.time.Month;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 
+/**
+ * Потокобезопасное хранилище в памяти. Сохраненные объекты Film не изменяются - обновление заменяет
+ * запись целиком, а наружу отдаются копии, поэтому читатели всегда видят согласованный снимок.
+ * Лайки хранятся отдельно; каждое множество IntSet защищено собственным монитором.
+ */
 @Component
-@Qualifier("inMemoryFilmStorage")
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory")
 @Slf4j
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Integer, Film> films = new HashMap<>();
+    private final ConcurrentMap<Integer, Film> films = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, IntSet> likes = new ConcurrentHashMap<>();
     private final LocalDate cinemaBirthday = LocalDate.of(1895, Month.DECEMBER, 28);
-    private int nextId = 1;
-    private UserStorage uStorage;
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final UserStorage uStorage;
+
+    public InMemoryFilmStorage(UserStorage uStorage) {
+        this.uStorage = uStorage;
+    }
 
     @Override
     public Collection<Film> findAll() {
-        return List.copyOf(films.values());
+        return films.values().stream()
+                .map(this::snapshot)
+                .toList();
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> action) {
+        films.values().stream()
+                .sorted(Comparator.comparing(Film::getId))
+                .map(this::snapshot)
+                .forEach(action);
     }
 
     @Override
     public Film findFilm(int id) {
-        if (films.get(id) == null) {
+        Film film = films.get(id);
+        if (film == null) {
             throw new NotFoundException("По указанному id (" + id + ") фильм не обнаружен");
         }
-        return films.get(id);
+        return snapshot(film);
+    }
+
+    @Override
+    public List<Film> findFilms(List<Integer> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::snapshot)
+                .toList();
+    }
+
+    @Override
+    public List<Film> findPage(int after, int limit) {
+        return films.values().stream()
+                .filter(film -> film.getId() > after)
+                .sorted(Comparator.comparing(Film::getId))
+                .limit(limit)
+                .map(this::snapshot)
+                .toList();
+    }
+
+    /**
+     * Куча из count элементов по числу лайков: ключ - число лайков в старших битах и инвертированный
+     * id в младших (при равенстве выше фильм с меньшим id). Копии снимаются только с вошедших в топ.
+     */
+    @Override
+    public List<Film> findPopular(int count) {
+        PriorityQueue<Long> top = new PriorityQueue<>();
+        likes.forEach((id, filmLikes) -> {
+            int liked;
+            synchronized (filmLikes) {
+                liked = filmLikes.size();
+            }
+            top.offer(((long) liked << 32) | (Integer.MAX_VALUE - id));
+            if (top.size() > count) {
+                top.poll();
+            }
+        });
+        long[] keys = top.stream().mapToLong(Long::longValue).sorted().toArray();
+        List<Film> result = new ArrayList<>(keys.length);
+        for (int i = keys.length - 1; i >= 0; i--) {
+            Film film = films.get(Integer.MAX_VALUE - (int) keys[i]);
+            if (film != null) {
+                result.add(snapshot(film));
+            }
+        }
+        return result;
     }
 
     @Override
@@ -43,10 +118,16 @@ public class InMemoryFilmStorage implements FilmStorage {
             throw new ValidationException("Данные не проходят проверку:\n" +
                     "-дата релиза должна быть не раньше 28 декабря 1895 года.");
         }
-        film.setId(nextId++);
+        film.setId(nextId.getAndIncrement());
         log.info("В список добавлен новый фильм: {}", film);
-        films.put(film.getId(), film);
-        return film;
+        likes.put(film.getId(), new IntSet());
+        films.put(film.getId(), copy(film));
+        return snapshot(films.get(film.getId()));
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return films.stream().map(this::create).toList();
     }
 
     @Override
@@ -54,35 +135,141 @@ public class InMemoryFilmStorage implements FilmStorage {
         if (newFilm.getId() == null) {
             throw new ValidationException("Id должен быть указан");
         }
-        if (films.containsKey(newFilm.getId())) {
-            Film oldFilm = films.get(newFilm.getId());
-            if (newFilm.getReleaseDate().isBefore(cinemaBirthday)) {
-                throw new ValidationException("Данные не проходят проверку:\n" +
-                        "-дата релиза — не раньше 28 декабря 1895 года.");
-            }
+        if (newFilm.getReleaseDate().isBefore(cinemaBirthday)) {
+            throw new ValidationException("Данные не проходят проверку:\n" +
+                    "-дата релиза — не раньше 28 декабря 1895 года.");
+        }
+        Film updated = films.computeIfPresent(newFilm.getId(), (id, oldFilm) -> {
             log.info("Обновлены данные фильма: {}, на новые: {}", oldFilm, newFilm);
-            oldFilm.setName(newFilm.getName());
-            oldFilm.setDescription(newFilm.getDescription());
-            oldFilm.setReleaseDate(newFilm.getReleaseDate());
-            oldFilm.setDuration(newFilm.getDuration());
-            return oldFilm;
+            Film film = copy(oldFilm);
+            film.setName(newFilm.getName());
+            film.setDescription(newFilm.getDescription());
+            film.setReleaseDate(newFilm.getReleaseDate());
+            film.setDuration(newFilm.getDuration());
+            film.setMpa(newFilm.getMpa());
+            film.setGenres(genresOf(newFilm));
+            return film;
+        });
+        if (updated == null) {
+            throw new NotFoundException("Фильм с id = " + newFilm.getId() + " не найден");
+        }
+        return snapshot(updated);
+    }
+
+    @Override
+    public boolean addLike(int id, int userId) {
+        uStorage.findUser(userId);
+        IntSet filmLikes = likesOf(id);
+        synchronized (filmLikes) {
+            return filmLikes.add(userId);
         }
-        throw new NotFoundException("Фильм с id = " + newFilm.getId() + " не найден");
     }
 
     @Override
-    public void addLike(int id, int userId) {
-        Film film = findFilm(id);
-        if (uStorage.findUser(userId) != null) {
-            film.getLikes().add(userId);
+    public boolean removeLike(int id, int userId) {
+        uStorage.findUser(userId);
+        IntSet filmLikes = likesOf(id);
+        synchronized (filmLikes) {
+            return filmLikes.removeInt(userId);
         }
     }
 
     @Override
-    public void removeLike(int id, int userId) {
-        Film film = findFilm(id);
-        if (uStorage.findUser(userId) != null) {
-            film.getLikes().remove(userId);
+    public List<Like> addLikes(List<Like> likes) {
+        Set<Integer> users = uStorage.findExistingIds(likes.stream().map(Like::getUserId).collect(Collectors.toSet()));
+        return likes.stream()
+                .filter(like -> users.contains(like.getUserId()))
+                .filter(like -> {
+                    IntSet filmLikes = this.likes.get(like.getFilmId());
+                    if (filmLikes == null) {
+                        return false;
+                    }
+                    synchronized (filmLikes) {
+                        return filmLikes.add(like.getUserId().intValue());
+                    }
+                })
+                .toList();
+    }
+
+    @Override
+    public List<Like> removeLikes(List<Like> likes) {
+        return likes.stream()
+                .filter(like -> {
+                    IntSet filmLikes = this.likes.get(like.getFilmId());
+                    if (filmLikes == null) {
+                        return false;
+                    }
+                    synchronized (filmLikes) {
+                        return filmLikes.removeInt(like.getUserId());
+                    }
+                })
+                .toList();
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        return ids.stream()
+                .filter(films::containsKey)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public void forEachId(IntConsumer action) {
+        films.keySet().forEach(action::accept);
+    }
+
+    @Override
+    public void forEachLike(IntPairConsumer action) {
+        likes.forEach((id, users) -> {
+            for (int userId : copyOf(users).toIntArray()) {
+                action.accept(id, userId);
+            }
+        });
+    }
+
+    @Override
+    public Map<Integer, Integer> countLikes() {
+        return likes.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> copyOf(entry.getValue()).size()));
+    }
+
+    private IntSet likesOf(int id) {
+        IntSet filmLikes = likes.get(id);
+        if (filmLikes == null) {
+            throw new NotFoundException("По указанному id (" + id + ") фильм не обнаружен");
+        }
+        return filmLikes;
+    }
+
+    private Film snapshot(Film film) {
+        Film result = copy(film);
+        IntSet filmLikes = likes.get(film.getId());
+        result.setLikes(filmLikes == null ? new IntSet() : copyOf(filmLikes));
+        return result;
+    }
+
+    private static IntSet copyOf(IntSet set) {
+        synchronized (set) {
+            return new IntSet(set);
         }
     }
+
+    private static Film copy(Film film) {
+        Film result = new Film();
+        result.setId(film.getId());
+        result.setName(film.getName());
+        result.setDescription(film.getDescription());
+        result.setReleaseDate(film.getReleaseDate());
+        result.setDuration(film.getDuration());
+        result.setMpa(film.getMpa());
+        result.setGenres(genresOf(film));
+        return result;
+    }
+
+    /**
+     * Копия жанров; null в запросе ("genres": null) означает фильм без жанров, как и в БД.
+     */
+    private static Set<Genre> genresOf(Film film) {
+        return film.getGenres() == null ? new LinkedHashSet<>() : new LinkedHashSet<>(film.getGenres());
+    }
 }
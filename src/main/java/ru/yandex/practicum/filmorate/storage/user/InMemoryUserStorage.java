@@ -1,33 +1,60 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.DataConflictException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.IntSet;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.IntArrays;
+import ru.yandex.practicum.filmorate.util.IntPairConsumer;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
+/**
+ * Потокобезопасное хранилище в памяти. Сохраненные объекты User не изменяются - обновление заменяет
+ * запись целиком, а наружу отдаются копии. Дружба, как и в таблице Friends, направленная.
+ */
 @Component
-@Qualifier("inMemoryUserStorage")
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory")
 @Slf4j
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Integer, User> users = new HashMap<>();
-    private int nextId = 1;
+    private final ConcurrentMap<Integer, User> users = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, IntSet> friends = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
 
     @Override
     public Collection<User> findAll() {
-        return List.copyOf(users.values());
+        return users.values().stream()
+                .map(this::snapshot)
+                .toList();
     }
 
     @Override
     public User findUser(int id) {
-        if (users.get(id) == null) {
+        User user = users.get(id);
+        if (user == null) {
             throw new NotFoundException("По указанному id (" + id + ") пользователь не обнаружен");
         }
-        return users.get(id);
+        return snapshot(user);
+    }
+
+    @Override
+    public List<User> findPage(int after, int limit) {
+        return users.values().stream()
+                .filter(user -> user.getId() > after)
+                .sorted(Comparator.comparing(User::getId))
+                .limit(limit)
+                .map(this::snapshot)
+                .toList();
     }
 
     @Override
@@ -35,10 +62,16 @@ public class InMemoryUserStorage implements UserStorage {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
-        user.setId(nextId++);
+        user.setId(nextId.getAndIncrement());
         log.info("В список добавлен новый пользователь: {}", user);
-        users.put(user.getId(), user);
-        return user;
+        friends.put(user.getId(), new IntSet());
+        users.put(user.getId(), copy(user));
+        return snapshot(users.get(user.getId()));
+    }
+
+    @Override
+    public List<User> createAll(List<User> users) {
+        return users.stream().map(this::create).toList();
     }
 
     @Override
@@ -46,50 +79,116 @@ public class InMemoryUserStorage implements UserStorage {
         if (newUser.getId() == null) {
             throw new ValidationException("Id должен быть указан");
         }
-        if (users.containsKey(newUser.getId())) {
-            User oldUser = users.get(newUser.getId());
+        User updated = users.computeIfPresent(newUser.getId(), (id, oldUser) -> {
             log.info("Обновлены данные пользователя: {}, на новые: {}", oldUser, newUser);
-            oldUser.setLogin(newUser.getLogin());
-            oldUser.setName(newUser.getName());
-            oldUser.setEmail(newUser.getEmail());
-            oldUser.setBirthday(newUser.getBirthday());
-            return oldUser;
+            return copy(newUser);
+        });
+        if (updated == null) {
+            throw new NotFoundException("Пользователь с id = " + newUser.getId() + " не найден");
         }
-        throw new NotFoundException("Пользователь с id = " + newUser.getId() + " не найден");
+        return snapshot(updated);
     }
 
     @Override
     public void addFriend(int id, int friendId) {
-        if (findUser(friendId) != null) {
-            findUser(id).getFriends().add(friendId);
-            findUser(friendId).getFriends().add(id);
+        findUser(friendId);
+        IntSet userFriends = friendsOf(id);
+        synchronized (userFriends) {
+            if (!userFriends.add(friendId)) {
+                throw new DataConflictException("Дружба уже создана");
+            }
+        }
+    }
+
+    @Override
+    public void addFriends(List<Friendship> friendships) {
+        for (Friendship friendship : friendships) {
+            findUser(friendship.getFriendId());
+            IntSet userFriends = friendsOf(friendship.getUserId());
+            synchronized (userFriends) {
+                userFriends.add(friendship.getFriendId().intValue());
+            }
         }
     }
 
     @Override
     public void removeFriend(int id, int friendId) {
-        if (findUser(friendId) != null) {
-            findUser(id).getFriends().remove(friendId);
-            findUser(friendId).getFriends().remove(id);
+        findUser(friendId);
+        IntSet userFriends = friendsOf(id);
+        synchronized (userFriends) {
+            userFriends.removeInt(friendId);
         }
     }
 
     @Override
     public Collection<User> findFriends(int id) {
-        return List.copyOf(findUser(id).getFriends().stream()
-                .map(this::findUser)
+        return findUsers(copyOf(friendsOf(id)).toIntArray());
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        return ids.stream()
+                .filter(users::containsKey)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public List<User> findUsers(int[] ids) {
+        return Arrays.stream(ids)
+                .mapToObj(users::get)
                 .filter(Objects::nonNull)
-                .collect(Collectors.toList()));
+                .map(this::snapshot)
+                .toList();
+    }
+
+    @Override
+    public void forEachFriendship(IntPairConsumer action) {
+        friends.forEach((id, userFriends) -> {
+            for (int friendId : copyOf(userFriends).toIntArray()) {
+                action.accept(id, friendId);
+            }
+        });
+    }
+
+    @Override
+    public void forEachId(IntConsumer action) {
+        users.keySet().forEach(action::accept);
     }
 
     @Override
     public Collection<User> findCommonFriends(int id, int otherId) {
-        HashSet<Integer> commonId = new HashSet<>(findUser(id).getFriends());
-        commonId.retainAll(findUser(otherId).getFriends());
+        return findUsers(IntArrays.intersect(copyOf(friendsOf(id)).toIntArray(),
+                copyOf(friendsOf(otherId)).toIntArray()));
+    }
 
-        return List.copyOf(commonId.stream()
-                .map(this::findUser)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList()));
+    private IntSet friendsOf(int id) {
+        IntSet userFriends = friends.get(id);
+        if (userFriends == null) {
+            throw new NotFoundException("По указанному id (" + id + ") пользователь не обнаружен");
+        }
+        return userFriends;
+    }
+
+    private User snapshot(User user) {
+        User result = copy(user);
+        IntSet userFriends = friends.get(user.getId());
+        result.setFriends(userFriends == null ? new IntSet() : copyOf(userFriends));
+        return result;
+    }
+
+    private static IntSet copyOf(IntSet set) {
+        synchronized (set) {
+            return new IntSet(set);
+        }
+    }
+
+    private static User copy(User user) {
+        User result = new User();
+        result.setId(user.getId());
+        result.setLogin(user.getLogin());
+        result.setName(user.getName());
+        result.setEmail(user.getEmail());
+        result.setBirthday(user.getBirthday());
+        return result;
     }
 }
@@ -1,23 +1,42 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.IntPairConsumer;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
 
 public interface UserStorage {
     Collection<User> findAll();
 
     User findUser(int id);
 
+    List<User> findUsers(int[] ids);
+
+    List<User> findPage(int after, int limit);
+
     User create(User user);
 
+    List<User> createAll(List<User> users);
+
     User update(User newUser);
 
     void addFriend(int id, int friendId);
 
+    void addFriends(List<Friendship> friendships);
+
     void removeFriend(int id, int friendId);
 
     Collection<User> findFriends(int id);
 
     Collection<User> findCommonFriends(int id, int otherId);
+
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
+    void forEachId(IntConsumer action);
+
+    void forEachFriendship(IntPairConsumer action);
 }
\ No newline at end of file
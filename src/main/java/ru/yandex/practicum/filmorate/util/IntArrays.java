@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Операции над отсортированными массивами int без повторов.
+ */
+public final class IntArrays {
+    public static final int[] EMPTY = new int[0];
+
+    private static final int GALLOP_RATIO = 16;
+
+    private IntArrays() {
+    }
+
+    public static int[] insert(int[] sorted, int value) {
+        int pos = Arrays.binarySearch(sorted, value);
+        if (pos >= 0) {
+            return sorted;
+        }
+        int insertAt = -pos - 1;
+        int[] result = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, result, 0, insertAt);
+        result[insertAt] = value;
+        System.arraycopy(sorted, insertAt, result, insertAt + 1, sorted.length - insertAt);
+        return result;
+    }
+
+    public static int[] remove(int[] sorted, int value) {
+        int pos = Arrays.binarySearch(sorted, value);
+        if (pos < 0) {
+            return sorted;
+        }
+        if (sorted.length == 1) {
+            return EMPTY;
+        }
+        int[] result = new int[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, pos);
+        System.arraycopy(sorted, pos + 1, result, pos, sorted.length - pos - 1);
+        return result;
+    }
+
+    /**
+     * Пересечение: слиянием для массивов сопоставимого размера, галопом - если один намного длиннее.
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) {
+            int[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a.length == 0) {
+            return EMPTY;
+        }
+        int[] result = new int[a.length];
+        int size = intersect(a, b, result);
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Индекс i-го из taken элементов, взятых с равным шагом из массива длиной length: выборка
+     * покрывает весь массив, а не только его начало.
+     */
+    public static int sample(int i, int taken, int length) {
+        return taken == length ? i : (int) ((long) i * length / taken);
+    }
+
+    public static int intersectionSize(int[] a, int[] b) {
+        if (a.length > b.length) {
+            return intersect(b, a, null);
+        }
+        return intersect(a, b, null);
+    }
+
+    private static int intersect(int[] small, int[] large, int[] out) {
+        return (long) small.length * GALLOP_RATIO < large.length ? gallop(small, large, out) : merge(small, large, out);
+    }
+
+    private static int merge(int[] a, int[] b, int[] out) {
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                if (out != null) {
+                    out[size] = a[i];
+                }
+                size++;
+                i++;
+                j++;
+            }
+        }
+        return size;
+    }
+
+    private static int gallop(int[] small, int[] large, int[] out) {
+        int size = 0;
+        int low = 0;
+        for (int value : small) {
+            int bound = 1;
+            while (low + bound < large.length && large[low + bound] < value) {
+                bound <<= 1;
+            }
+            int pos = Arrays.binarySearch(large, low, Math.min(low + bound + 1, large.length), value);
+            if (pos >= 0) {
+                if (out != null) {
+                    out[size] = value;
+                }
+                size++;
+                low = pos + 1;
+            } else {
+                low = -pos - 1;
+            }
+            if (low >= large.length) {
+                break;
+            }
+        }
+        return size;
+    }
+}
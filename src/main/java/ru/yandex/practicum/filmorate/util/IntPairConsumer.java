@@ -0,0 +1,6 @@
+package ru.yandex.practicum.filmorate.util;
+
+@FunctionalInterface
+public interface IntPairConsumer {
+    void accept(int first, int second);
+}
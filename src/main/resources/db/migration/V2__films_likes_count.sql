@@ -0,0 +1,2 @@
+ALTER TABLE Films ADD COLUMN IF NOT EXISTS likes_count INTEGER DEFAULT 0 NOT NULL;
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON Films (likes_count DESC, film_id);
@@ -9,7 +9,9 @@ import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import ru.yandex.practicum.filmorate.dao.FilmDbStorage;
 import ru.yandex.practicum.filmorate.dao.GenreDbStorage;
+import ru.yandex.practicum.filmorate.dao.ParallelHydration;
 import ru.yandex.practicum.filmorate.dao.RatingDbStorage;
+import ru.yandex.practicum.filmorate.dao.ReferenceDataRegistry;
 import ru.yandex.practicum.filmorate.dao.UserDbStorage;
 import ru.yandex.practicum.filmorate.dao.mappers.FilmRowMapper;
 import ru.yandex.practicum.filmorate.dao.mappers.GenreRowMapper;
@@ -17,11 +19,15 @@ import ru.yandex.practicum.filmorate.dao.mappers.RatingRowMapper;
 import ru.yandex.practicum.filmorate.dao.mappers.UserRowMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -33,7 +39,8 @@ import static org.assertj.core.api.Assertions.assertThat;
         UserDbStorage.class, UserRowMapper.class,
         FilmDbStorage.class, FilmRowMapper.class,
         GenreDbStorage.class, GenreRowMapper.class,
-        RatingDbStorage.class, RatingRowMapper.class
+        RatingDbStorage.class, RatingRowMapper.class,
+        ReferenceDataRegistry.class, ParallelHydration.class
 })
 class FilmorateApplicationTests {
     private final UserDbStorage userStorage;
@@ -122,6 +129,23 @@ class FilmorateApplicationTests {
                 );
     }
 
+    @Test
+    public void testFindFilmWithDetails() {
+        user = userStorage.create(user);
+        Rating mpa = new Rating();
+        mpa.setId(1);
+        film.setMpa(mpa);
+        film.setGenres(Set.of(genreStorage.findGenre(1), genreStorage.findGenre(2)));
+        film = filmStorage.create(film);
+        filmStorage.addLike(film.getId(), user.getId());
+
+        Film found = filmStorage.findFilm(film.getId());
+
+        assertThat(found.getMpa()).isEqualTo(ratingStorage.findRating(1));
+        assertThat(found.getGenres()).containsExactlyInAnyOrder(genreStorage.findGenre(1), genreStorage.findGenre(2));
+        assertThat(found.getLikes()).containsExactly(user.getId());
+    }
+
     @Test
     public void testUpdateFilm() {
         film = filmStorage.create(film);
@@ -137,6 +161,55 @@ class FilmorateApplicationTests {
                 );
     }
 
+    @Test
+    public void testFindPopular() {
+        user = userStorage.create(user);
+        Film unpopular = filmStorage.create(film);
+        Film popular = new Film();
+        popular.setName("popular");
+        popular.setDuration(90);
+        popular.setReleaseDate(LocalDate.now());
+        popular = filmStorage.create(popular);
+        filmStorage.addLike(popular.getId(), user.getId());
+
+        List<Film> films = filmStorage.findPopular(2);
+
+        assertThat(films).extracting(Film::getId).containsExactly(popular.getId(), unpopular.getId());
+        assertThat(films.getFirst().getLikes()).containsExactly(user.getId());
+    }
+
+    @Test
+    public void testLikesCountFollowsLikes() {
+        user = userStorage.create(user);
+        film = filmStorage.create(film);
+
+        filmStorage.addLike(film.getId(), user.getId());
+        assertThat(filmStorage.countLikes()).containsEntry(film.getId(), 1);
+
+        assertThat(filmStorage.removeLike(film.getId(), user.getId())).isTrue();
+        assertThat(filmStorage.removeLike(film.getId(), user.getId())).isFalse();
+        assertThat(filmStorage.countLikes()).containsEntry(film.getId(), 0);
+    }
+
+    @Test
+    public void testStreamAllMergesSideTables() {
+        user = userStorage.create(user);
+        Film first = filmStorage.create(film);
+        Film second = new Film();
+        second.setName("second");
+        second.setDuration(90);
+        second.setReleaseDate(LocalDate.now());
+        second = filmStorage.create(second);
+        filmStorage.addLike(second.getId(), user.getId());
+
+        List<Film> films = new ArrayList<>();
+        filmStorage.streamAll(films::add);
+
+        assertThat(films).extracting(Film::getId).containsExactly(first.getId(), second.getId());
+        assertThat(films.get(0).getLikes()).isEmpty();
+        assertThat(films.get(1).getLikes()).containsExactly(user.getId());
+    }
+
     @Test
     public void testGetGenres() {
         Collection<Genre> genres = genreStorage.findAllGenre();
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilmCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final IntFunction<Film> loader = id -> {
+        loads.incrementAndGet();
+        Film film = new Film();
+        film.setId(id);
+        return film;
+    };
+
+    @Test
+    void secondReadIsServedFromCache() {
+        FilmCache cache = new FilmCache(true, 10);
+
+        cache.get(1, loader);
+        cache.get(1, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        FilmCache cache = new FilmCache(true, 10);
+
+        cache.get(1, loader);
+        cache.invalidate(1);
+        cache.get(1, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationDuringLoadAffectsOnlyThatFilm() {
+        FilmCache cache = new FilmCache(true, 10);
+
+        cache.get(1, id -> {
+            cache.invalidate(2);
+            return loader.apply(id);
+        });
+        cache.get(2, id -> {
+            cache.invalidate(2);
+            return loader.apply(id);
+        });
+        cache.get(1, loader);
+        cache.get(2, loader);
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void changingReturnedFilmDoesNotChangeCache() {
+        FilmCache cache = new FilmCache(true, 10);
+
+        cache.get(1, loader).getLikes().add(7);
+        cache.get(1, loader).getLikes().add(8);
+
+        assertTrue(cache.get(1, loader).getLikes().isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedFilmIsEvicted() {
+        FilmCache cache = new FilmCache(true, 2);
+
+        cache.get(1, loader);
+        cache.get(2, loader);
+        cache.get(1, loader);
+        cache.get(3, loader);
+        cache.get(1, loader);
+        cache.get(2, loader);
+
+        assertEquals(2, cache.size());
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        FilmCache cache = new FilmCache(false, 10);
+
+        cache.get(1, loader);
+        cache.get(1, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+}
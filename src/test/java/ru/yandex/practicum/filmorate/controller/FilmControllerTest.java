@@ -1,17 +1,27 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.*;
+import org.springframework.test.context.TestPropertySource;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.LikeStatus;
+import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class FilmControllerTest {
@@ -120,4 +130,198 @@ class FilmControllerTest {
         assertNotNull(response.getBody());
         assertEquals("Updated description", response.getBody().getDescription());
     }
-}
\ No newline at end of file
+
+    @Test
+    void popularFilmsOrderedByLikes() {
+        film.setName("test");
+        film.setDuration(50);
+        film.setReleaseDate(LocalDate.now());
+        Film unpopular = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        Film popular = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        assertNotNull(unpopular);
+        assertNotNull(popular);
+
+        User user = new User();
+        user.setLogin("fan");
+        user.setEmail("fan@mail.com");
+        user.setBirthday(LocalDate.now());
+        User fan = restTemplate.postForEntity("/users", user, User.class).getBody();
+        assertNotNull(fan);
+
+        restTemplate.put("/films/" + popular.getId() + "/like/" + fan.getId(), null);
+
+        Film[] films = restTemplate.getForObject("/films/popular?count=1000", Film[].class);
+        List<Integer> ids = Arrays.stream(films).map(Film::getId).toList();
+        assertTrue(ids.indexOf(popular.getId()) < ids.indexOf(unpopular.getId()));
+        assertTrue(ids.indexOf(unpopular.getId()) >= 0);
+        assertEquals(HttpStatus.BAD_REQUEST,
+                restTemplate.getForEntity("/films/popular?count=1001", String.class).getStatusCode());
+    }
+
+    @Test
+    void streamAllFilmsAsNdjson() {
+        film.setName("stream");
+        film.setDuration(50);
+        film.setReleaseDate(LocalDate.now());
+        Film created = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        assertNotNull(created);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType("application/x-ndjson")));
+        ResponseEntity<String> response = restTemplate.exchange("/films", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        List<String> lines = response.getBody().lines().toList();
+        assertTrue(lines.stream().allMatch(line -> line.startsWith("{")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"id\":" + created.getId() + ",")));
+
+        headers.setAccept(List.of(MediaType.ALL));
+        response = restTemplate.exchange("/films", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertNotNull(response.getBody());
+        assertTrue(response.getBody().startsWith("["));
+    }
+
+    @Test
+    void importFilmsFromJsonArrayAndNdjson() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String array = "[{\"name\":\"bulk 1\",\"releaseDate\":\"2000-01-01\",\"duration\":90," +
+                "\"mpa\":{\"id\":1},\"genres\":[{\"id\":1},{\"id\":2}]}," +
+                "{\"name\":\"bulk 2\",\"releaseDate\":\"2001-01-01\",\"duration\":95}]";
+        ResponseEntity<Integer[]> response = restTemplate.postForEntity("/films/bulk",
+                new HttpEntity<>(array, headers), Integer[].class);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        Integer[] ids = response.getBody();
+        assertNotNull(ids);
+        assertEquals(2, ids.length);
+        assertTrue(ids[0] < ids[1]);
+        Film first = restTemplate.getForObject("/films/" + ids[0], Film.class);
+        assertEquals("bulk 1", first.getName());
+        assertEquals(2, first.getGenres().size());
+        assertEquals("bulk 2", restTemplate.getForObject("/films/" + ids[1], Film.class).getName());
+
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+        String ndjson = "{\"name\":\"bulk 3\",\"releaseDate\":\"2002-01-01\",\"duration\":80}\n" +
+                "{\"name\":\"bulk 4\",\"releaseDate\":\"2003-01-01\",\"duration\":85}\n";
+        response = restTemplate.postForEntity("/films/bulk", new HttpEntity<>(ndjson, headers), Integer[].class);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(2, response.getBody().length);
+
+        String invalid = "{\"name\":\"bulk 5\",\"releaseDate\":\"2002-01-01\",\"duration\":80}\n" +
+                "{\"name\":\"\",\"releaseDate\":\"2003-01-01\",\"duration\":85}\n";
+        ResponseEntity<String> error = restTemplate.postForEntity("/films/bulk",
+                new HttpEntity<>(invalid, headers), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+        assertTrue(error.getBody().contains("Фильм №2"));
+    }
+
+    @Test
+    void addLikesBatch() {
+        film.setName("batch");
+        film.setDuration(50);
+        film.setReleaseDate(LocalDate.now());
+        Film created = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        assertNotNull(created);
+
+        User user = new User();
+        user.setLogin("batch");
+        user.setEmail("batch@mail.com");
+        user.setBirthday(LocalDate.now());
+        User fan = restTemplate.postForEntity("/users", user, User.class).getBody();
+        assertNotNull(fan);
+
+        List<Like> likes = List.of(
+                new Like(created.getId(), fan.getId()),
+                new Like(created.getId(), fan.getId()),
+                new Like(Integer.MAX_VALUE, fan.getId()),
+                new Like(created.getId(), Integer.MAX_VALUE));
+        LikeResult[] results = restTemplate.postForObject("/films/likes/batch", likes, LikeResult[].class);
+
+        assertEquals(LikeStatus.CREATED, results[0].getStatus());
+        assertEquals(LikeStatus.DUPLICATE, results[1].getStatus());
+        assertEquals(LikeStatus.UNKNOWN_FILM, results[2].getStatus());
+        assertEquals(LikeStatus.UNKNOWN_USER, results[3].getStatus());
+
+        results = restTemplate.postForObject("/films/likes/batch", likes.subList(0, 1), LikeResult[].class);
+        assertEquals(LikeStatus.DUPLICATE, results[0].getStatus());
+
+        Film liked = restTemplate.getForObject("/films/" + created.getId(), Film.class);
+        assertEquals(Set.of(fan.getId()), liked.getLikes());
+    }
+
+    @Test
+    void duplicateLikeIsIgnored() {
+        assertDuplicateLikeIgnored(restTemplate);
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "filmorate.likes.write-behind.enabled=true",
+            "filmorate.likes.write-behind.journal=./db/test-controller-likes.journal"})
+    class WriteBehind {
+        @Autowired
+        TestRestTemplate restTemplate;
+
+        @Test
+        void duplicateLikeIsIgnored() {
+            assertDuplicateLikeIgnored(restTemplate);
+        }
+    }
+
+    @Test
+    void recommendationsFromSimilarUsers() {
+        film.setName("recommended");
+        film.setDuration(50);
+        film.setReleaseDate(LocalDate.now());
+        Film first = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        Film second = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        Film expected = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        Film unrelated = restTemplate.postForEntity("/films", film, Film.class).getBody();
+
+        User user = new User();
+        user.setLogin("similar");
+        user.setEmail("similar@mail.com");
+        user.setBirthday(LocalDate.now());
+        User me = restTemplate.postForEntity("/users", user, User.class).getBody();
+        User similar = restTemplate.postForEntity("/users", user, User.class).getBody();
+        User stranger = restTemplate.postForEntity("/users", user, User.class).getBody();
+
+        restTemplate.put("/films/" + first.getId() + "/like/" + me.getId(), null);
+        restTemplate.put("/films/" + second.getId() + "/like/" + me.getId(), null);
+        restTemplate.put("/films/" + first.getId() + "/like/" + similar.getId(), null);
+        restTemplate.put("/films/" + second.getId() + "/like/" + similar.getId(), null);
+        restTemplate.put("/films/" + expected.getId() + "/like/" + similar.getId(), null);
+        restTemplate.put("/films/" + unrelated.getId() + "/like/" + stranger.getId(), null);
+
+        Film[] films = restTemplate.getForObject("/users/" + me.getId() + "/recommendations", Film[].class);
+        assertEquals(1, films.length);
+        assertEquals(expected.getId(), films[0].getId());
+
+        restTemplate.put("/films/" + expected.getId() + "/like/" + me.getId(), null);
+        films = restTemplate.getForObject("/users/" + me.getId() + "/recommendations", Film[].class);
+        assertEquals(0, films.length);
+    }
+
+    private static void assertDuplicateLikeIgnored(TestRestTemplate restTemplate) {
+        Film film = new Film();
+        film.setName("duplicate");
+        film.setDuration(50);
+        film.setReleaseDate(LocalDate.now());
+        Film created = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        User user = new User();
+        user.setLogin("twice");
+        user.setEmail("twice@mail.com");
+        user.setBirthday(LocalDate.now());
+        User fan = restTemplate.postForEntity("/users", user, User.class).getBody();
+        assertNotNull(created);
+        assertNotNull(fan);
+        String likeUrl = "/films/" + created.getId() + "/like/" + fan.getId();
+
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<Void> response = restTemplate.exchange(likeUrl, HttpMethod.PUT, null, Void.class);
+            assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        }
+        assertEquals(Set.of(fan.getId()), restTemplate.getForObject("/films/" + created.getId(), Film.class).getLikes());
+    }
+}
@@ -122,4 +122,86 @@ public class UserControllerTest {
         assertNotNull(response.getBody());
         assertEquals("Updated Name", response.getBody().getName());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findUsersPage() {
+        user.setLogin("page");
+        user.setEmail("page@mail.com");
+        user.setBirthday(LocalDate.now());
+        User first = restTemplate.postForEntity("/users", user, User.class).getBody();
+        User second = restTemplate.postForEntity("/users", user, User.class).getBody();
+        assertNotNull(first);
+        assertNotNull(second);
+
+        User[] page = restTemplate.getForObject("/users?after=" + first.getId() + "&limit=1", User[].class);
+        assertEquals(1, page.length);
+        assertEquals(second.getId(), page[0].getId());
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/users?limit=0", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void commonFriendsFollowFriendChanges() {
+        user.setLogin("graph");
+        user.setEmail("graph@mail.com");
+        user.setBirthday(LocalDate.now());
+        User first = restTemplate.postForEntity("/users", user, User.class).getBody();
+        User second = restTemplate.postForEntity("/users", user, User.class).getBody();
+        User common = restTemplate.postForEntity("/users", user, User.class).getBody();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotNull(common);
+
+        restTemplate.put("/users/" + first.getId() + "/friends/" + common.getId(), null);
+        restTemplate.put("/users/" + second.getId() + "/friends/" + common.getId(), null);
+        restTemplate.put("/users/" + first.getId() + "/friends/" + second.getId(), null);
+
+        User[] friends = restTemplate.getForObject("/users/" + first.getId() + "/friends", User[].class);
+        assertEquals(2, friends.length);
+        User[] result = restTemplate.getForObject("/users/" + first.getId() + "/friends/common/" + second.getId(),
+                User[].class);
+        assertEquals(1, result.length);
+        assertEquals(common.getId(), result[0].getId());
+
+        restTemplate.delete("/users/" + second.getId() + "/friends/" + common.getId());
+        result = restTemplate.getForObject("/users/" + first.getId() + "/friends/common/" + second.getId(),
+                User[].class);
+        assertEquals(0, result.length);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/users/" + Integer.MAX_VALUE + "/friends",
+                String.class);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void friendSuggestionsRankedByMutualFriends() {
+        user.setLogin("suggest");
+        user.setEmail("suggest@mail.com");
+        user.setBirthday(LocalDate.now());
+        User me = restTemplate.postForEntity("/users", user, User.class).getBody();
+        User first = restTemplate.postForEntity("/users", user, User.class).getBody();
+        User second = restTemplate.postForEntity("/users", user, User.class).getBody();
+        User strong = restTemplate.postForEntity("/users", user, User.class).getBody();
+        User weak = restTemplate.postForEntity("/users", user, User.class).getBody();
+
+        restTemplate.put("/users/" + me.getId() + "/friends/" + first.getId(), null);
+        restTemplate.put("/users/" + me.getId() + "/friends/" + second.getId(), null);
+        restTemplate.put("/users/" + first.getId() + "/friends/" + strong.getId(), null);
+        restTemplate.put("/users/" + second.getId() + "/friends/" + strong.getId(), null);
+        restTemplate.put("/users/" + second.getId() + "/friends/" + weak.getId(), null);
+        restTemplate.put("/users/" + first.getId() + "/friends/" + me.getId(), null);
+
+        User[] suggestions = restTemplate.getForObject("/users/" + me.getId() + "/friends/suggestions",
+                User[].class);
+        assertEquals(2, suggestions.length);
+        assertEquals(strong.getId(), suggestions[0].getId());
+        assertEquals(weak.getId(), suggestions[1].getId());
+
+        restTemplate.put("/users/" + me.getId() + "/friends/" + strong.getId(), null);
+        suggestions = restTemplate.getForObject("/users/" + me.getId() + "/friends/suggestions?count=5",
+                User[].class);
+        assertEquals(1, suggestions.length);
+        assertEquals(weak.getId(), suggestions[0].getId());
+    }
+}
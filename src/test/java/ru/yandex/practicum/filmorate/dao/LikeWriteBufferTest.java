@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.DataConflictException;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-interval-ms=600000",
+        "filmorate.likes.write-behind.journal=./db/test-likes.journal"})
+class LikeWriteBufferTest {
+    private static final String COUNT_LIKES = "SELECT COUNT(*) FROM Likes WHERE film_id = ? AND user_id = ?";
+    private static final String LIKES_COUNT = "SELECT likes_count FROM Films WHERE film_id = ?";
+
+    @Autowired
+    TestRestTemplate restTemplate;
+    @Autowired
+    LikeWriteBuffer buffer;
+    @Autowired
+    FilmStorage filmStorage;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Test
+    void likesAreBufferedCoalescedAndReplayedFromJournal() throws Exception {
+        Film film = new Film();
+        film.setName("premiere");
+        film.setDuration(90);
+        film.setReleaseDate(LocalDate.now());
+        Film created = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        User user = new User();
+        user.setLogin("fan");
+        user.setEmail("fan@mail.com");
+        user.setBirthday(LocalDate.now());
+        User fan = restTemplate.postForEntity("/users", user, User.class).getBody();
+        assertNotNull(created);
+        assertNotNull(fan);
+        String likeUrl = "/films/" + created.getId() + "/like/" + fan.getId();
+
+        restTemplate.put(likeUrl, null);
+        assertEquals(Set.of(fan.getId()), restTemplate.getForObject("/films/" + created.getId(), Film.class).getLikes());
+        assertEquals(0, likesInDb(created, fan));
+
+        restTemplate.delete(likeUrl);
+        assertEquals(0, buffer.pendingSize());
+        assertEquals(Set.of(), restTemplate.getForObject("/films/" + created.getId(), Film.class).getLikes());
+
+        restTemplate.put(likeUrl, null);
+        LikeWriteBuffer recovered = new LikeWriteBuffer(filmStorage, transactionTemplate, true, 1000, 600000, 10000,
+                "./db/test-likes.journal");
+        recovered.start();
+        recovered.stop();
+        assertEquals(1, likesInDb(created, fan));
+
+        buffer.flush();
+        assertEquals(0, buffer.pendingSize());
+        assertEquals(1, likesInDb(created, fan));
+        assertEquals(1, jdbc.queryForObject(LIKES_COUNT, Integer.class, created.getId()));
+        assertEquals(Set.of(fan.getId()), restTemplate.getForObject("/films/" + created.getId(), Film.class).getLikes());
+    }
+
+    @Test
+    void eventsOverMaxPendingAreRejected() throws Exception {
+        LikeWriteBuffer bounded = new LikeWriteBuffer(filmStorage, transactionTemplate, true, 1000, 600000, 1,
+                "./db/test-bounded-likes.journal");
+        bounded.start();
+        try {
+            bounded.addLike(1, 1);
+            assertThrows(ServiceUnavailableException.class, () -> bounded.addLike(1, 2));
+            assertEquals(1, bounded.pendingSize());
+            bounded.removeLike(1, 1);
+            assertEquals(0, bounded.pendingSize());
+            bounded.addLike(1, 2);
+            assertEquals(1, bounded.pendingSize());
+            bounded.removeLike(1, 2);
+        } finally {
+            bounded.stop();
+        }
+    }
+
+    @Test
+    void replaySkipsEventsThatViolateForeignKeys() throws Exception {
+        Film film = createFilm("replayed");
+        User fan = createUser("replay");
+        Path journal = Path.of("./db/test-replay-likes.journal");
+        Files.createDirectories(journal.getParent());
+        ByteBuffer records = ByteBuffer.allocate(18);
+        records.put((byte) 1).putInt(Integer.MAX_VALUE).putInt(fan.getId());
+        records.put((byte) 1).putInt(film.getId()).putInt(fan.getId());
+        Files.write(journal, records.array());
+
+        LikeWriteBuffer replayed = new LikeWriteBuffer(filmStorage, transactionTemplate, true, 1000, 600000, 10000,
+                journal.toString());
+        replayed.start();
+        replayed.stop();
+        assertEquals(1, likesInDb(film, fan));
+        assertTrue(Files.exists(journal.resolveSibling(journal.getFileName() + ".failed")));
+    }
+
+    @Test
+    void failedJournalRewriteKeepsJournalWritable() throws Exception {
+        Film film = createFilm("rewrite");
+        User fan = createUser("rewrite");
+        Path tmp = Path.of("./db/test-rewrite-likes.journal.tmp");
+        Files.createDirectories(tmp.resolve("busy"));
+        LikeWriteBuffer rewritten = new LikeWriteBuffer(filmStorage, transactionTemplate, true, 1000, 600000, 10000,
+                "./db/test-rewrite-likes.journal");
+        rewritten.start();
+        try {
+            rewritten.addLike(film.getId(), fan.getId());
+            assertThrows(DataConflictException.class, rewritten::flush);
+            assertEquals(1, likesInDb(film, fan));
+
+            rewritten.removeLike(film.getId(), fan.getId());
+            Files.delete(tmp.resolve("busy"));
+            rewritten.flush();
+            assertEquals(0, likesInDb(film, fan));
+        } finally {
+            rewritten.stop();
+        }
+    }
+
+    private Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDuration(90);
+        film.setReleaseDate(LocalDate.now());
+        Film created = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        assertNotNull(created);
+        return created;
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@mail.com");
+        user.setBirthday(LocalDate.now());
+        User created = restTemplate.postForEntity("/users", user, User.class).getBody();
+        assertNotNull(created);
+        return created;
+    }
+
+    private int likesInDb(Film film, User user) {
+        return jdbc.queryForObject(COUNT_LIKES, Integer.class, film.getId(), user.getId());
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelHydrationTest {
+
+    @Test
+    void forkedQueriesRunOnVirtualThreadsWithinLimit() {
+        ParallelHydration hydration = new ParallelHydration(null, true, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        ParallelHydration.Task<?>[] tasks = new ParallelHydration.Task<?>[8];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = hydration.fork(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return Thread.currentThread().isVirtual();
+            });
+        }
+        for (ParallelHydration.Task<?> task : tasks) {
+            assertEquals(true, task.join());
+        }
+        assertTrue(maxRunning.get() <= 2);
+        hydration.shutdown();
+    }
+
+    @Test
+    void failuresAreRethrownUnwrapped() {
+        ParallelHydration hydration = new ParallelHydration(null, true, 1);
+        ParallelHydration.Task<Object> task = hydration.fork(() -> {
+            throw new NotFoundException("нет");
+        });
+        assertThrows(NotFoundException.class, task::join);
+        hydration.shutdown();
+    }
+
+    @Test
+    void disabledModeRunsInCallerThread() {
+        ParallelHydration hydration = new ParallelHydration(null, false, 1);
+        Thread caller = Thread.currentThread();
+        assertSame(caller, hydration.fork(Thread::currentThread).join());
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Планы H2 (EXPLAIN) для всех SQL-констант FilmDbStorage и UserDbStorage на схеме после миграций:
+ * ни один запрос не должен читать таблицу целиком, кроме перечисленных в FULL_SCANS. Новый запрос
+ * без подходящего индекса, как и запрос из FULL_SCANS, который стал индексным, роняет тест.
+ */
+@SpringBootTest
+class QueryPlanTest {
+    private static final List<Class<?>> STORAGES = List.of(FilmDbStorage.class, UserDbStorage.class);
+    // Полная таблица в плане - tableScan или индекс без условия; чтение по сортированному индексу с FETCH FIRST
+    // полным не считается.
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* PUBLIC\\.[A-Z0-9_]+(\\.tableScan)? \\*/");
+    private static final Pattern TOP_N = Pattern.compile("FETCH FIRST .* /\\* index sorted \\*/");
+    private static final Set<String> FULL_SCANS = Set.of(
+            // загрузка индексов и кэшей при старте и выгрузка всех записей
+            "FilmDbStorage.FIND_ALL_QUERY", "FilmDbStorage.FIND_ALL_IDS_QUERY", "FilmDbStorage.STREAM_FILMS_QUERY",
+            "FilmDbStorage.STREAM_LIKES_QUERY", "FilmDbStorage.STREAM_GENRES_QUERY", "FilmDbStorage.FIND_ALL_LIKES",
+            "FilmDbStorage.COUNT_LIKES_BY_FILM", "FilmDbStorage.FIND_ALL_GENRE_QUERY",
+            "UserDbStorage.FIND_ALL_QUERY", "UserDbStorage.FIND_ALL_IDS_QUERY",
+            "UserDbStorage.FIND_ALL_FRIENDSHIPS_QUERY",
+            // сверка счетчиков лайков при старте
+            "FilmDbStorage.REPAIR_LIKES_COUNT_QUERY");
+    private static final String FIND_UNNAMED_INDEXES_QUERY = "SELECT table_name || '.' || index_name " +
+            "FROM INFORMATION_SCHEMA.INDEXES WHERE table_schema = SCHEMA() AND index_name LIKE 'CONSTRAINT%'";
+
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Test
+    void queriesUseIndexes() throws Exception {
+        Map<String, String> plans = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (Map.Entry<String, String> statement : statements().entrySet()) {
+                plans.put(statement.getKey(), explain(connection, statement.getValue()));
+            }
+        }
+        List<String> unexpected = new ArrayList<>();
+        plans.forEach((name, plan) -> {
+            if (isFullScan(plan) != FULL_SCANS.contains(name)) {
+                unexpected.add(name + (FULL_SCANS.contains(name) ? " больше не читает таблицу целиком: " : ": ")
+                        + plan);
+            }
+        });
+        assertEquals(List.of(), unexpected);
+    }
+
+    @Test
+    void foreignKeysUseNamedIndexes() {
+        assertEquals(List.of(), jdbc.queryForList(FIND_UNNAMED_INDEXES_QUERY, String.class));
+    }
+
+    private static boolean isFullScan(String plan) {
+        return FULL_SCAN.matcher(plan).find() && !TOP_N.matcher(plan).find();
+    }
+
+    private static Map<String, String> statements() throws IllegalAccessException {
+        Map<String, String> statements = new LinkedHashMap<>();
+        for (Class<?> type : STORAGES) {
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers) || field.getType() != String.class) {
+                    continue;
+                }
+                field.setAccessible(true);
+                String sql = (String) field.get(null);
+                if (isSql(sql)) {
+                    statements.put(type.getSimpleName() + "." + field.getName(), sql);
+                }
+            }
+        }
+        assertFalse(statements.isEmpty());
+        return statements;
+    }
+
+    private static String explain(Connection connection, String sql) throws Exception {
+        String bound = sql.replace(") IN (%s)", ") IN ((?, ?), (?, ?))")
+                .replace("VALUES %s", "VALUES (?, ?), (?, ?)").replace("%s", "?, ?");
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + bound)) {
+            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                statement.setObject(i, 1);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1).replaceAll("\\s+", " ");
+            }
+        }
+    }
+
+    private static boolean isSql(String value) {
+        String start = value.stripLeading().toUpperCase(Locale.ROOT);
+        return start.startsWith("SELECT ") || start.startsWith("INSERT ") || start.startsWith("UPDATE ")
+                || start.startsWith("DELETE ") || start.startsWith("MERGE ") || start.startsWith("WITH ");
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "filmorate.import.chunk-size=2")
+class UserImporterTest {
+    @Autowired
+    UserImporter importer;
+    @Autowired
+    UserService userService;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void importsUsersAndFriendshipsByExternalIds() throws Exception {
+        Path users = Files.writeString(dir.resolve("users.csv"), """
+                id,login,name,email,birthday
+                9000000001,alice,"Smith, Alice",alice@mail.com,1990-01-01
+                9000000002,bob,,bob@mail.com,1991-02-02
+                9000000003,carol,Carol,carol@mail.com,1992-03-03
+                9000000002,bob2,,bob2@mail.com,1991-02-02
+                9000000004,bad login,,dave@mail.com,1993-04-04
+                """);
+        Path friends = Files.writeString(dir.resolve("friends.ndjson"), """
+                {"userId":9000000001,"friendId":9000000002}
+                {"userId":9000000001,"friendId":9000000003}
+                {"userId":9000000001,"friendId":9000000002}
+                {"userId":9000000002,"friendId":9000000004}
+                not json
+                """);
+
+        UserImporter.Report report = importer.importUsers(users, friends);
+
+        assertEquals(5, report.usersRead());
+        assertEquals(3, report.usersCreated());
+        assertEquals(2, report.usersRejected());
+        assertEquals(5, report.friendshipsRead());
+        assertEquals(3, report.friendshipsCreated());
+        assertEquals(2, report.friendshipsRejected());
+
+        User alice = userService.findAll().stream()
+                .filter(user -> "alice".equals(user.getLogin()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("Smith, Alice", alice.getName());
+        List<String> friendLogins = userService.findFriends(alice.getId()).stream().map(User::getLogin).toList();
+        assertEquals(List.of("bob", "carol"), friendLogins);
+    }
+}
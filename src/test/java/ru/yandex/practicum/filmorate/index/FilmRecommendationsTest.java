@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+
+class FilmRecommendationsTest {
+    private static final int POPULAR_FILM = 1;
+    private static final int NEW_USERS_FILM = 2;
+    private static final int USER = 1000;
+
+    @Test
+    void fanOutCapSamplesWholeAudienceOfPopularFilm() {
+        LikeMatrix matrix = new LikeMatrix(mock(FilmStorage.class));
+        for (int userId = 1; userId <= 100; userId++) {
+            matrix.addLike(POPULAR_FILM, userId);
+            if (userId > 50) {
+                matrix.addLike(NEW_USERS_FILM, userId);
+            }
+        }
+        matrix.addLike(POPULAR_FILM, USER);
+        FilmRecommendations recommendations = new FilmRecommendations(matrix, 10, 50, 100, 100);
+
+        assertArrayEquals(new int[]{NEW_USERS_FILM}, recommendations.recommend(USER, 10));
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntPairConsumer;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FriendSuggestionsTest {
+    private static final int USERS = 100_000;
+    private static final int HUBS = 10;
+    private static final int HUB_FRIENDS = 20_000;
+    private static final long P99_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void friendChangeInvalidatesOnlyUsersThatReadTheRow() {
+        FriendGraph graph = new FriendGraph(new InMemoryUserStorage());
+        graph.addFriend(1, 2);
+        graph.addFriend(2, 3);
+        graph.addFriend(4, 5);
+        graph.addFriend(5, 6);
+        FriendSuggestions suggestions = new FriendSuggestions(graph, 500, 100, 100);
+        int[] first = suggestions.suggest(1, 10);
+        int[] fourth = suggestions.suggest(4, 10);
+        assertArrayEquals(new int[]{3}, first);
+        assertArrayEquals(new int[]{6}, fourth);
+
+        graph.addFriend(2, 7);
+
+        assertSame(fourth, suggestions.suggest(4, 10));
+        assertArrayEquals(new int[]{3, 7}, suggestions.suggest(1, 10));
+        graph.removeFriend(4, 5);
+        assertNotSame(fourth, suggestions.suggest(4, 10));
+        assertArrayEquals(new int[0], suggestions.suggest(4, 10));
+    }
+
+    @Test
+    void hubSuggestionsStayWithinP99Budget() {
+        UserStorage storage = mock(UserStorage.class);
+        doAnswer(invocation -> {
+            IntPairConsumer action = invocation.getArgument(0);
+            SplittableRandom random = new SplittableRandom(42);
+            for (int id = 1; id <= USERS; id++) {
+                int friends = id <= HUBS ? HUB_FRIENDS : 20;
+                for (int i = 0; i < friends; i++) {
+                    action.accept(id, i % 10 == 0 ? random.nextInt(1, HUBS + 1) : random.nextInt(1, USERS + 1));
+                }
+            }
+            return null;
+        }).when(storage).forEachFriendship(any());
+        FriendGraph graph = new FriendGraph(storage);
+        graph.rebuild();
+        FriendSuggestions suggestions = new FriendSuggestions(graph, 500, 100, 0);
+        for (int i = 0; i < 50; i++) {
+            suggestions.suggest(1 + i % HUBS, 100);
+        }
+
+        long[] nanos = new long[200];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            suggestions.suggest(1 + i % HUBS, 100);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+
+        long p99 = nanos[nanos.length * 99 / 100 - 1];
+        assertTrue(p99 < P99_BUDGET_NANOS, "p99 " + p99 / 1000 + " мкс");
+    }
+
+    @Test
+    void fanOutIsSampledAcrossTheWholeRow() {
+        FriendGraph graph = new FriendGraph(new InMemoryUserStorage());
+        for (int friend = 100; friend < 200; friend++) {
+            graph.addFriend(1, friend);
+            graph.addFriend(friend, friend + 1000);
+        }
+        FriendSuggestions suggestions = new FriendSuggestions(graph, 10, 100, 100);
+
+        int[] ids = suggestions.suggest(1, 100);
+
+        assertTrue(ids.length == 10, Arrays.toString(ids));
+        assertTrue(Arrays.stream(ids).min().getAsInt() < 1110 && Arrays.stream(ids).max().getAsInt() >= 1190,
+                Arrays.toString(ids));
+    }
+}
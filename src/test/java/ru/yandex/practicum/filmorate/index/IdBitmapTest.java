@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdBitmapTest {
+
+    @Test
+    void addGrowsAndKeepsExistingBits() {
+        IdBitmap bitmap = new IdBitmap();
+        bitmap.add(1);
+        bitmap.add(63);
+        bitmap.add(64);
+        bitmap.add(100_000);
+
+        assertTrue(bitmap.contains(1));
+        assertTrue(bitmap.contains(63));
+        assertTrue(bitmap.contains(64));
+        assertTrue(bitmap.contains(100_000));
+        assertFalse(bitmap.contains(2));
+        assertFalse(bitmap.contains(65));
+        assertFalse(bitmap.contains(1_000_000));
+        assertFalse(bitmap.contains(-1));
+        assertEquals(4, bitmap.cardinality());
+    }
+
+    @Test
+    void clearRemovesAllIds() {
+        IdBitmap bitmap = new IdBitmap();
+        bitmap.add(5);
+        bitmap.clear();
+
+        assertFalse(bitmap.contains(5));
+        assertEquals(0, bitmap.cardinality());
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Открытая модель нагрузки: запросы отправляются по расписанию с постоянной частотой и не ждут
+ * завершения предыдущих. Задержка считается от запланированного момента отправки, а не от фактического,
+ * поэтому если сервер или сам генератор не успевают, ожидание в очереди попадает в перцентили
+ * (поправка на coordinated omission).
+ */
+public final class FixedRateDriver {
+    private FixedRateDriver() {
+    }
+
+    public static Report run(HttpClient client, Workload workload, int rate, Duration warmup, Duration duration,
+                             long seed) {
+        String[] names = workload.names();
+        LatencyRecorder[] recorders = new LatencyRecorder[names.length];
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new LatencyRecorder();
+        }
+        LatencyRecorder overall = new LatencyRecorder();
+        SplittableRandom random = new SplittableRandom(seed);
+        long requests = (warmup.toNanos() + duration.toNanos()) * rate / 1_000_000_000L;
+        double interval = 1_000_000_000.0 / rate;
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < requests; i++) {
+                long intended = start + (long) (i * interval);
+                Workload.Request request = workload.next(random);
+                for (long delay = intended - System.nanoTime(); delay > 0; delay = intended - System.nanoTime()) {
+                    LockSupport.parkNanos(delay);
+                }
+                boolean measured = intended >= measureFrom;
+                executor.execute(() -> {
+                    int status;
+                    try {
+                        status = client.send(request.http(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (measured) {
+                        long latency = System.nanoTime() - intended;
+                        recorders[request.operation()].record(latency, status);
+                        overall.record(latency, status);
+                    }
+                });
+            }
+        }
+        double seconds = Math.max(duration.toNanos(), System.nanoTime() - measureFrom) / 1e9;
+
+        Map<String, LatencyRecorder.Summary> operations = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            operations.put(names[i], recorders[i].summarize(seconds));
+        }
+        return new Report(rate, operations, overall.summarize(seconds));
+    }
+
+    public record Report(int rate, Map<String, LatencyRecorder.Summary> operations, LatencyRecorder.Summary total) {
+        public String format() {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                    "Целевая частота %d req/s, задержки в мс от запланированного момента отправки%n", rate));
+            sb.append(String.format(Locale.ROOT, "%-24s %8s %9s %8s %8s %8s %8s %6s %6s %6s%n",
+                    "operation", "requests", "req/s", "p50", "p95", "p99", "max", "4xx", "5xx", "fail"));
+            operations.forEach((name, summary) -> sb.append(line(name, summary)));
+            sb.append(line("total", total));
+            return sb.toString();
+        }
+
+        private static String line(String name, LatencyRecorder.Summary s) {
+            return String.format(Locale.ROOT, "%-24s %8d %9.1f %8.2f %8.2f %8.2f %8.2f %6d %6d %6d%n",
+                    name, s.requests(), s.throughput(), s.p50() / 1e6, s.p95() / 1e6, s.p99() / 1e6,
+                    s.max() / 1e6, s.clientErrors(), s.serverErrors(), s.failures());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.Arrays;
+
+/**
+ * Задержки одной операции в наносекундах. Все значения хранятся целиком, поэтому перцентили точные;
+ * для прогонов длиной в минуты это несколько мегабайт.
+ */
+public final class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int count;
+    private int clientErrors;
+    private int serverErrors;
+    private int failures;
+
+    /**
+     * status - код ответа HTTP или -1, если ответ не получен.
+     */
+    public synchronized void record(long latencyNanos, int status) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (status < 0) {
+            failures++;
+        } else if (status >= 500) {
+            serverErrors++;
+        } else if (status >= 400) {
+            clientErrors++;
+        }
+    }
+
+    public synchronized Summary summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Summary(count, count / seconds, clientErrors, serverErrors, failures,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                count == 0 ? 0 : sorted[count - 1]);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+    }
+
+    /**
+     * failures - запросы без ответа: обрыв соединения или таймаут клиента.
+     */
+    public record Summary(int requests, double throughput, int clientErrors, int serverErrors, int failures,
+                          long p50, long p95, long p99, long max) {
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.migration.ForeignKeyIndexes;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный прогон против встроенного сервера на синтетических данных, полностью офлайн.
+ * В обычной сборке пропускается, запуск:
+ * mvn test -Dtest=LoadHarnessTest -Dfilmorate.load=true [-Dfilmorate.load.rate=500 -Dfilmorate.load.mix=...]
+ * Остальные свойства filmorate.* (например, filmorate.likes.write-behind.enabled) передаются так же через -D.
+ * По умолчанию журнал HTTP выключен; -Dfilmorate.load.http-log=true оставляет настройки журналирования
+ * приложения, чтобы измерить их цену (отчет тогда дублируется в target/load-report.txt).
+ */
+@EnabledIfSystemProperty(named = "filmorate.load", matches = "true")
+@Slf4j
+class LoadHarnessTest {
+    private static final String URL = "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void fixedRateMix() throws Exception {
+        int users = Integer.getInteger("filmorate.load.users", 10_000);
+        int films = Integer.getInteger("filmorate.load.films", 20_000);
+        long seed = Long.getLong("filmorate.load.seed", 42);
+        int rate = Integer.getInteger("filmorate.load.rate", 200);
+        Duration warmup = Duration.ofSeconds(Long.getLong("filmorate.load.warmup-seconds", 30));
+        Duration duration = Duration.ofSeconds(Long.getLong("filmorate.load.duration-seconds", 60));
+        String mix = System.getProperty("filmorate.load.mix", Workload.DEFAULT_MIX);
+        boolean httpLog = Boolean.getBoolean("filmorate.load.http-log");
+
+        SocialGraphGenerator.Dataset data;
+        Flyway.configure()
+                .dataSource(URL, "sa", "password")
+                .javaMigrations(new ForeignKeyIndexes())
+                .load()
+                .migrate();
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "password")) {
+            data = SocialGraphGenerator.generate(connection, users, films, seed);
+        }
+        log.info("Сгенерировано пользователей: {}, фильмов: {}, лайков: {}, дружб: {}",
+                data.users(), data.films(), data.likes(), data.friendships());
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + URL,
+                "--logging.level.ru.yandex.practicum.filmorate.load=INFO"));
+        if (!httpLog) {
+            args.add("--logging.level.root=WARN");
+            args.add("--logging.level.org.zalando.logbook=WARN");
+        }
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run(args.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            Workload workload = new Workload(URI.create("http://localhost:" + port), data, mix);
+
+            FixedRateDriver.Report report = FixedRateDriver.run(client, workload, rate, warmup, duration, seed);
+            log.info("Результаты нагрузочного прогона:\n{}", report.format());
+            if (httpLog) {
+                Files.writeString(Path.of("target", "load-report.txt"), report.format());
+            }
+
+            assertTrue(report.total().requests() > 0);
+            assertEquals(0, report.total().failures(), "Часть запросов осталась без ответа");
+        }
+    }
+}
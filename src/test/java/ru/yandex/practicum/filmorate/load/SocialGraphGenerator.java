@@ -0,0 +1,215 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Детерминированный генератор данных, похожих на боевые. Популярность фильмов и активность
+ * пользователей распределены по Ципфу, число лайков и друзей у пользователя - по Парето.
+ * Пользователи разбиты на сообщества, и большая часть дружб остается внутри сообщества, а остальные
+ * ведут к "знаменитостям". Жанры и рейтинги берутся из справочников, заполненных миграцией R__reference_data.sql.
+ */
+public final class SocialGraphGenerator {
+    private static final double POPULARITY_EXPONENT = 1.0;
+    private static final double ACTIVITY_EXPONENT = 0.8;
+    private static final double LIKES_ALPHA = 1.5;
+    private static final double FRIENDS_ALPHA = 1.8;
+    private static final int MIN_FRIENDS = 2;
+    private static final int MAX_LIKES = 1000;
+    private static final int MAX_FRIENDS = 500;
+    private static final int COMMUNITY_SIZE = 100;
+    private static final double COMMUNITY_SHARE = 0.8;
+    private static final int MAX_GENRES = 3;
+    private static final int BATCH_SIZE = 10_000;
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(1950, 1, 1);
+
+    /**
+     * Сгенерированный набор. filmByRank и userByRank переводят ранг популярности (с 1) в id,
+     * чтобы нагрузка читала те же "горячие" записи, что получили больше всего лайков и друзей.
+     */
+    public record Dataset(int users, int films, long likes, long friendships, int[] filmByRank, int[] userByRank) {
+    }
+
+    private SocialGraphGenerator() {
+    }
+
+    public static Dataset generate(Connection connection, int users, int films, long seed) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        connection.setAutoCommit(false);
+        int[] genreIds = ids(connection, "SELECT genre_id FROM Genres ORDER BY genre_id");
+        int[] ratingIds = ids(connection, "SELECT rating_id FROM Rating ORDER BY rating_id");
+
+        insertUsers(connection, users, random);
+        insertFilms(connection, films, genreIds, ratingIds, random);
+
+        int[] filmByRank = shuffledIds(films, random);
+        int[] userByRank = shuffledIds(users, random);
+        long likes = insertLikes(connection, users, films, filmByRank, random);
+        long friendships = insertFriends(connection, users, userByRank, random);
+        connection.commit();
+        return new Dataset(users, films, likes, friendships, filmByRank, userByRank);
+    }
+
+    private static void insertUsers(Connection connection, int users, SplittableRandom random) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Users (login, name, email, birthday) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= users; i++) {
+                ps.setString(1, "user" + i);
+                ps.setString(2, "User " + i);
+                ps.setString(3, "user" + i + "@mail.com");
+                ps.setDate(4, Date.valueOf(FIRST_RELEASE.plusDays(random.nextInt(20_000))));
+                addBatch(ps, connection, i);
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static void insertFilms(Connection connection, int films, int[] genreIds, int[] ratingIds,
+                                    SplittableRandom random) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Films (name, description, release_date, duration, rating_id) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement genres = connection.prepareStatement(
+                     "INSERT INTO Films_Genres (film_id, genre_id) VALUES (?, ?)")) {
+            for (int i = 1; i <= films; i++) {
+                ps.setString(1, "Film " + i);
+                ps.setString(2, "Description of film " + i);
+                ps.setDate(3, Date.valueOf(FIRST_RELEASE.plusDays(random.nextInt(25_000))));
+                ps.setInt(4, 60 + random.nextInt(120));
+                if (random.nextInt(10) == 0) {
+                    ps.setNull(5, Types.INTEGER);
+                } else {
+                    ps.setInt(5, ratingIds[random.nextInt(ratingIds.length)]);
+                }
+                addBatch(ps, connection, i);
+            }
+            ps.executeBatch();
+
+            int rows = 0;
+            for (int filmId = 1; filmId <= films; filmId++) {
+                int first = random.nextInt(genreIds.length);
+                int count = random.nextInt(Math.min(MAX_GENRES, genreIds.length) + 1);
+                for (int j = 0; j < count; j++) {
+                    genres.setInt(1, filmId);
+                    genres.setInt(2, genreIds[(first + j) % genreIds.length]);
+                    addBatch(genres, connection, ++rows);
+                }
+            }
+            genres.executeBatch();
+        }
+    }
+
+    private static long insertLikes(Connection connection, int users, int films, int[] filmByRank,
+                                    SplittableRandom random) throws SQLException {
+        Zipf popularity = new Zipf(films, POPULARITY_EXPONENT);
+        int[] likesCount = new int[films + 1];
+        Set<Integer> liked = new HashSet<>();
+        int rows = 0;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Likes (film_id, user_id) VALUES (?, ?)")) {
+            for (int userId = 1; userId <= users; userId++) {
+                int count = pareto(random, 1, LIKES_ALPHA, Math.min(MAX_LIKES, films));
+                liked.clear();
+                for (int attempt = 0; liked.size() < count && attempt < count * 4; attempt++) {
+                    int filmId = filmByRank[popularity.next(random) - 1];
+                    if (liked.add(filmId)) {
+                        ps.setInt(1, filmId);
+                        ps.setInt(2, userId);
+                        addBatch(ps, connection, ++rows);
+                        likesCount[filmId]++;
+                    }
+                }
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE Films SET likes_count = ? WHERE film_id = ?")) {
+            int updates = 0;
+            for (int filmId = 1; filmId <= films; filmId++) {
+                if (likesCount[filmId] > 0) {
+                    ps.setInt(1, likesCount[filmId]);
+                    ps.setInt(2, filmId);
+                    addBatch(ps, connection, ++updates);
+                }
+            }
+            ps.executeBatch();
+        }
+        return rows;
+    }
+
+    private static long insertFriends(Connection connection, int users, int[] userByRank,
+                                      SplittableRandom random) throws SQLException {
+        Zipf celebrity = new Zipf(users, ACTIVITY_EXPONENT);
+        Set<Integer> friends = new HashSet<>();
+        int rows = 0;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Friends (user_id, friend_id) VALUES (?, ?)")) {
+            for (int userId = 1; userId <= users; userId++) {
+                int communityStart = (userId - 1) / COMMUNITY_SIZE * COMMUNITY_SIZE + 1;
+                int communitySize = Math.min(COMMUNITY_SIZE, users - communityStart + 1);
+                int count = pareto(random, MIN_FRIENDS, FRIENDS_ALPHA, Math.min(MAX_FRIENDS, users - 1));
+                friends.clear();
+                for (int attempt = 0; friends.size() < count && attempt < count * 4; attempt++) {
+                    int friendId = random.nextDouble() < COMMUNITY_SHARE
+                            ? communityStart + random.nextInt(communitySize)
+                            : userByRank[celebrity.next(random) - 1];
+                    if (friendId != userId && friends.add(friendId)) {
+                        ps.setInt(1, userId);
+                        ps.setInt(2, friendId);
+                        addBatch(ps, connection, ++rows);
+                    }
+                }
+            }
+            ps.executeBatch();
+        }
+        return rows;
+    }
+
+    private static int pareto(SplittableRandom random, int min, double alpha, int max) {
+        double value = min / Math.pow(1 - random.nextDouble(), 1 / alpha);
+        return (int) Math.min(max, Math.max(0, value));
+    }
+
+    private static int[] shuffledIds(int n, SplittableRandom random) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        return ids;
+    }
+
+    private static int[] ids(Connection connection, String query) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(query)) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void addBatch(PreparedStatement ps, Connection connection, int row) throws SQLException {
+        ps.addBatch();
+        if (row % BATCH_SIZE == 0) {
+            ps.executeBatch();
+            connection.commit();
+        }
+    }
+}
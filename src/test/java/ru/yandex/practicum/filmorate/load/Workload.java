@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Смесь запросов к FilmController, UserController, GenreController и RatingController.
+ * Фильмы и пользователи для чтения выбираются по тем же распределениям Ципфа, что и при генерации,
+ * поэтому "горячие" записи читаются чаще остальных.
+ */
+public final class Workload {
+    /**
+     * Доли операций по умолчанию; переопределяются строкой вида "films.get=40,films.popular=10".
+     * Операции, не упомянутые в строке, не выполняются.
+     */
+    public static final String DEFAULT_MIX = "films.get=25,films.page=3,films.popular=12,films.like=6,"
+            + "films.unlike=2,films.update=1,users.get=10,users.friends=10,users.common-friends=6,"
+            + "users.suggestions=5,users.recommendations=5,users.add-friend=2,users.remove-friend=1,"
+            + "genres.all=3,genres.get=3,mpa.all=3,mpa.get=3";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int GENRES = 6;
+    private static final int RATINGS = 5;
+
+    private final String[] names;
+    private final List<Function<SplittableRandom, HttpRequest>> requests;
+    private final double[] cdf;
+
+    public Workload(URI base, SocialGraphGenerator.Dataset data, String mix) {
+        Map<String, Function<SplittableRandom, HttpRequest>> operations = operations(base, data);
+        Map<String, Integer> weights = parseMix(mix);
+        names = new String[weights.size()];
+        requests = new ArrayList<>(weights.size());
+        cdf = new double[weights.size()];
+
+        double total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        double sum = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Function<SplittableRandom, HttpRequest> request = operations.get(entry.getKey());
+            if (request == null) {
+                throw new IllegalArgumentException("Неизвестная операция: " + entry.getKey()
+                        + ", доступны: " + operations.keySet());
+            }
+            sum += entry.getValue();
+            names[i] = entry.getKey();
+            requests.add(request);
+            cdf[i++] = sum / total;
+        }
+    }
+
+    public String[] names() {
+        return names.clone();
+    }
+
+    public Request next(SplittableRandom random) {
+        double point = random.nextDouble();
+        int index = 0;
+        while (index < cdf.length - 1 && cdf[index] <= point) {
+            index++;
+        }
+        return new Request(index, requests.get(index).apply(random));
+    }
+
+    /**
+     * Запрос и индекс его операции в names().
+     */
+    public record Request(int operation, HttpRequest http) {
+    }
+
+    private static Map<String, Function<SplittableRandom, HttpRequest>> operations(URI base,
+                                                                                  SocialGraphGenerator.Dataset data) {
+        Zipf popularity = new Zipf(data.films(), 1.0);
+        Zipf activity = new Zipf(data.users(), 0.8);
+        Function<SplittableRandom, Integer> hotFilm = random -> data.filmByRank()[popularity.next(random) - 1];
+        Function<SplittableRandom, Integer> activeUser = random -> data.userByRank()[activity.next(random) - 1];
+        Function<SplittableRandom, Integer> anyUser = random -> 1 + random.nextInt(data.users());
+
+        Map<String, Function<SplittableRandom, HttpRequest>> operations = new LinkedHashMap<>();
+        operations.put("films.get", random -> get(base, "/films/" + hotFilm.apply(random)));
+        operations.put("films.page", random -> get(base, "/films?limit=100&after=" + random.nextInt(data.films())));
+        operations.put("films.popular", random -> get(base, "/films/popular?count=" + (1 + random.nextInt(50))));
+        operations.put("films.like", random -> send(base, "PUT",
+                "/films/" + hotFilm.apply(random) + "/like/" + anyUser.apply(random), null));
+        operations.put("films.unlike", random -> send(base, "DELETE",
+                "/films/" + hotFilm.apply(random) + "/like/" + anyUser.apply(random), null));
+        operations.put("films.update", random -> {
+            int id = 1 + random.nextInt(data.films());
+            return send(base, "PUT", "/films", "{\"id\":" + id + ",\"name\":\"Film " + id + "\","
+                    + "\"description\":\"Updated film " + id + "\",\"releaseDate\":\"2000-01-01\",\"duration\":"
+                    + (60 + random.nextInt(120)) + ",\"mpa\":{\"id\":" + (1 + random.nextInt(RATINGS)) + "},"
+                    + "\"genres\":[{\"id\":" + (1 + random.nextInt(GENRES)) + "}]}");
+        });
+        operations.put("users.get", random -> get(base, "/users/" + activeUser.apply(random)));
+        operations.put("users.friends", random -> get(base, "/users/" + activeUser.apply(random) + "/friends"));
+        operations.put("users.common-friends", random -> {
+            int id = activeUser.apply(random);
+            int other = Math.max(1, Math.min(data.users(), id + random.nextInt(21) - 10));
+            return get(base, "/users/" + id + "/friends/common/" + other);
+        });
+        operations.put("users.suggestions", random ->
+                get(base, "/users/" + activeUser.apply(random) + "/friends/suggestions"));
+        operations.put("users.recommendations", random ->
+                get(base, "/users/" + activeUser.apply(random) + "/recommendations"));
+        operations.put("users.add-friend", random -> send(base, "PUT",
+                "/users/" + anyUser.apply(random) + "/friends/" + anyUser.apply(random), null));
+        operations.put("users.remove-friend", random -> send(base, "DELETE",
+                "/users/" + anyUser.apply(random) + "/friends/" + anyUser.apply(random), null));
+        operations.put("genres.all", random -> get(base, "/genres"));
+        operations.put("genres.get", random -> get(base, "/genres/" + (1 + random.nextInt(GENRES))));
+        operations.put("mpa.all", random -> get(base, "/mpa"));
+        operations.put("mpa.get", random -> get(base, "/mpa/" + (1 + random.nextInt(RATINGS))));
+        return operations;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Ожидается операция=вес, получено: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(pair[0].trim(), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Смесь операций пуста: " + mix);
+        }
+        return weights;
+    }
+
+    private static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(TIMEOUT).GET().build();
+    }
+
+    private static HttpRequest send(URI base, String method, String path, String json) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, json == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
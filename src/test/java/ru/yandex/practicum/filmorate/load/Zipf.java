@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Выборка рангов 1..n с вероятностью, пропорциональной 1 / rank^exponent. Функция распределения
+ * считается один раз, выборка - двоичным поиском по ней.
+ */
+public final class Zipf {
+    private final double[] cdf;
+
+    public Zipf(int n, double exponent) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cdf[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    public int next(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, cdf.length - 1) + 1;
+    }
+}
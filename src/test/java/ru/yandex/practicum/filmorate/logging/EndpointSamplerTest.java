@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EndpointSamplerTest {
+
+    @Test
+    void firstMatchingRuleWins() {
+        EndpointSampler sampler = new EndpointSampler(
+                "GET /films=0.001, GET /films/**=0.01, /users/*/friends/**=0.5, POST /**=1", 0.1);
+
+        assertEquals(0.001, sampler.rateFor("GET", "/films"));
+        assertEquals(0.01, sampler.rateFor("get", "/films/popular"));
+        assertEquals(0.5, sampler.rateFor("PUT", "/users/1/friends/2"));
+        assertEquals(1, sampler.rateFor("POST", "/films"));
+        assertEquals(0.1, sampler.rateFor("PUT", "/films"));
+        assertEquals(0.1, sampler.rateFor("GET", "/genres"));
+    }
+
+    @Test
+    void emptyRulesUseDefaultRate() {
+        EndpointSampler sampler = new EndpointSampler("", 1.0);
+
+        assertEquals(1.0, sampler.rateFor("GET", "/films"));
+        assertThrows(IllegalArgumentException.class, () -> new EndpointSampler("GET /films", 1.0));
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.zalando.logbook.HttpRequest;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "filmorate.logging.async=false")
+class HttpLogSamplingTest {
+    @Autowired
+    TestRestTemplate restTemplate;
+    @Autowired
+    EndpointSampler sampler;
+    @SpyBean
+    AsyncLogSink sink;
+
+    @Test
+    void bulkImportIsNotLogged() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String films = "[{\"name\":\"unlogged\",\"releaseDate\":\"2000-01-01\",\"duration\":90}]";
+        assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/films/bulk",
+                new HttpEntity<>(films, headers), Integer[].class).getStatusCode());
+        Film film = new Film();
+        film.setName("logged");
+        film.setDuration(90);
+        film.setReleaseDate(LocalDate.now());
+        assertEquals(HttpStatus.CREATED, restTemplate.postForEntity("/films", film, Film.class).getStatusCode());
+
+        assertEquals(0, sampler.rateFor("POST", "/films/bulk"));
+        verify(sink, never()).write(any(), argThat((HttpRequest request) -> request.getPath().equals("/films/bulk")));
+        verify(sink, never()).write(any(), argThat((HttpRequest request) -> request.getPath().equals("/films/bulk")),
+                any());
+        verify(sink, atLeastOnce()).write(any(), argThat((HttpRequest request) -> request.getPath().equals("/films")),
+                any());
+    }
+}
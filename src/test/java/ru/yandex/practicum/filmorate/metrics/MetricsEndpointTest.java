@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.dao.StatementNames;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class MetricsEndpointTest {
+    @Autowired
+    TestRestTemplate restTemplate;
+    @Autowired
+    StatementNames names;
+    @LocalManagementPort
+    int managementPort;
+
+    @Test
+    void statementAndHandlerMetricsArePublished() {
+        Film film = new Film();
+        film.setName("metrics");
+        film.setDuration(50);
+        film.setReleaseDate(LocalDate.now());
+        Film created = restTemplate.postForEntity("/films", film, Film.class).getBody();
+        assertNotNull(created);
+        restTemplate.getForObject("/films/popular", Film[].class);
+
+        assertTrue(count("filmorate.jdbc.statement", "statement:FilmDbStorage.CREATE_QUERY") >= 1);
+        assertTrue(count("filmorate.jdbc.statement", "statement:FilmDbStorage.FIND_BY_IDS_QUERY") >= 1);
+        assertTrue(count("filmorate.jdbc.rows", "statement:FilmDbStorage.FIND_ALL_IDS_QUERY") >= 1);
+        assertTrue(count("http.server.requests", "handler:FilmController.getPopularFilms") >= 1);
+        assertTrue(count("filmorate.request.statements", "handler:FilmController.getPopularFilms") >= 1);
+        assertNotEquals(HttpStatus.OK, restTemplate.getForEntity("/actuator/metrics", String.class).getStatusCode());
+    }
+
+    @Test
+    void formattedQueriesResolveToTheirTemplate() {
+        assertEquals("FilmDbStorage.FIND_EXISTING_IDS_QUERY",
+                names.nameOf("SELECT film_id FROM Films WHERE film_id IN (?,?,?)"));
+        assertEquals("UserDbStorage.FIND_BY_IDS_QUERY",
+                names.nameOf("SELECT * FROM Users WHERE user_id IN (?) ORDER BY user_id"));
+        assertEquals(StatementNames.OTHER, names.nameOf("SELECT 1"));
+    }
+
+    private double count(String metric, String tag) {
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity(
+                "http://127.0.0.1:" + managementPort + "/actuator/metrics/" + metric + "?tag=" + tag,
+                JsonNode.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode(), metric + " " + tag);
+        for (JsonNode measurement : response.getBody().get("measurements")) {
+            if ("COUNT".equals(measurement.get("statistic").asText())) {
+                return measurement.get("value").asDouble();
+            }
+        }
+        return 0;
+    }
+}
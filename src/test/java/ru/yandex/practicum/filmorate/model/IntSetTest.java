@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSetTest {
+
+    @Test
+    void behavesAsSortedSet() {
+        IntSet set = IntSet.of(5, 1, 3, 3);
+        assertEquals(3, set.size());
+        assertArrayEquals(new int[]{1, 3, 5}, set.toIntArray());
+        assertEquals(Set.of(1, 3, 5), set);
+        assertTrue(set.contains(3));
+        assertFalse(set.add(5));
+
+        Iterator<Integer> iterator = set.iterator();
+        iterator.next();
+        iterator.remove();
+        assertArrayEquals(new int[]{3, 5}, set.toIntArray());
+        assertTrue(set.removeInt(5));
+        assertFalse(set.remove((Object) 7));
+        assertArrayEquals(new int[]{3}, set.toIntArray());
+    }
+
+    @Test
+    void keepsJsonContractOfIntegerSet() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        Film film = new Film();
+        film.setLikes(IntSet.of(2, 1));
+
+        String json = mapper.writeValueAsString(film);
+        assertTrue(json.contains("\"likes\":[1,2]"));
+        assertEquals(IntSet.of(1, 2), mapper.readValue(json, Film.class).getLikes());
+        assertThrows(Exception.class, () -> mapper.readValue("{\"likes\":[\"x\"]}", Film.class));
+    }
+}
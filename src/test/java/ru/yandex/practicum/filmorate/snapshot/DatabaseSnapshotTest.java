@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.DataConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class DatabaseSnapshotTest {
+    private static final String COUNT_FOREIGN_KEYS_QUERY =
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS WHERE constraint_schema = SCHEMA()";
+    private static final String COUNT_USERS_QUERY = "SELECT COUNT(*) FROM Users";
+    private static final String INSERT_LIKE_QUERY = "INSERT INTO Likes (film_id, user_id) VALUES (?, ?)";
+    private static final String DELETE_LIKE_QUERY = "DELETE FROM Likes WHERE film_id = ? AND user_id = ?";
+
+    @Autowired
+    DatabaseSnapshot snapshot;
+    @Autowired
+    UserService userService;
+    @Autowired
+    FilmService filmService;
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restoredDatabaseDumpsToSameBytes() throws Exception {
+        User alice = userService.create(user("snap_alice"));
+        User bob = userService.create(user("snap_bob"));
+        userService.addFriend(alice.getId(), bob.getId());
+        Film film = new Film();
+        film.setName("Снимок");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(rating(1));
+        film.setGenres(Set.of(genre(1), genre(2)));
+        film = filmService.create(film);
+        filmService.addLike(film.getId(), alice.getId());
+
+        Integer foreignKeys = jdbc.queryForObject(COUNT_FOREIGN_KEYS_QUERY, Integer.class);
+
+        Path first = dir.resolve("first.snap");
+        Map<String, Long> dumped = snapshot.dump(first);
+        Map<String, Long> restored = snapshot.restore(first);
+        Path second = dir.resolve("second.snap");
+        snapshot.dump(second);
+
+        assertEquals(dumped, restored);
+        assertTrue(dumped.get("Friends") >= 1 && dumped.get("Likes") >= 1 && dumped.get("Films_Genres") >= 2);
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+        assertEquals(foreignKeys, jdbc.queryForObject(COUNT_FOREIGN_KEYS_QUERY, Integer.class));
+        assertTrue(userService.create(user("snap_carol")).getId() > bob.getId());
+    }
+
+    @Test
+    void damagedSnapshotIsRejectedBeforeDatabaseIsTouched() throws Exception {
+        userService.create(user("snap_fan"));
+        Film film = new Film();
+        film.setName("Висячий лайк");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        film.setMpa(rating(1));
+        film = filmService.create(film);
+        Path dangling = dir.resolve("dangling.snap");
+        jdbc.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            jdbc.update(INSERT_LIKE_QUERY, film.getId(), Integer.MAX_VALUE);
+            snapshot.dump(dangling);
+        } finally {
+            jdbc.update(DELETE_LIKE_QUERY, film.getId(), Integer.MAX_VALUE);
+            jdbc.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+        Path valid = dir.resolve("valid.snap");
+        snapshot.dump(valid);
+        byte[] bytes = Files.readAllBytes(valid);
+        Path truncated = Files.write(dir.resolve("truncated.snap"), Arrays.copyOf(bytes, bytes.length - 20));
+        byte[] badLength = Arrays.copyOf(bytes, bytes.length);
+        ByteBuffer.wrap(badLength, badLength.length - 12, 12).putInt(1).putInt(-1).putInt(0);
+        Path negative = Files.write(dir.resolve("negative.snap"), badLength);
+        bytes[bytes.length - 20] ^= 1;
+        Path corrupted = Files.write(dir.resolve("corrupted.snap"), bytes);
+        Integer users = jdbc.queryForObject(COUNT_USERS_QUERY, Integer.class);
+        Integer foreignKeys = jdbc.queryForObject(COUNT_FOREIGN_KEYS_QUERY, Integer.class);
+
+        for (Path damaged : List.of(dangling, truncated, negative, corrupted)) {
+            assertThrows(DataConflictException.class, () -> snapshot.restore(damaged), damaged.toString());
+            assertEquals(users, jdbc.queryForObject(COUNT_USERS_QUERY, Integer.class));
+            assertEquals(foreignKeys, jdbc.queryForObject(COUNT_FOREIGN_KEYS_QUERY, Integer.class));
+        }
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@mail.com");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private static Rating rating(int id) {
+        Rating rating = new Rating();
+        rating.setId(id);
+        return rating;
+    }
+
+    private static Genre genre(int id) {
+        Genre genre = new Genre();
+        genre.setId(id);
+        return genre;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SnapshotRestoreCallbackTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void likesJournalOfPreviousDatabaseIsSetAsideAfterRestore() throws Exception {
+        DatabaseSnapshot snapshot = mock(DatabaseSnapshot.class);
+        Path source = dir.resolve("filmorate.snap");
+        Path journal = dir.resolve("likes.journal");
+        byte[] records = {1, 0, 0, 0, 1, 0, 0, 0, 2};
+        Files.write(journal, records);
+
+        new SnapshotRestoreCallback(snapshot, source.toString(), journal.toString()).handle(null, null);
+
+        verify(snapshot).restore(source);
+        assertFalse(Files.exists(journal));
+        assertArrayEquals(records, Files.readAllBytes(dir.resolve("likes.journal.discarded")));
+    }
+}
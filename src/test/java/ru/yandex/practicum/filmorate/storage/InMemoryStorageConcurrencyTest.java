@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryStorageConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int USERS = 200;
+    private static final int FILMS = 50;
+
+    private InMemoryUserStorage userStorage;
+    private InMemoryFilmStorage filmStorage;
+
+    @BeforeEach
+    void setup() {
+        userStorage = new InMemoryUserStorage();
+        filmStorage = new InMemoryFilmStorage(userStorage);
+    }
+
+    @Test
+    void noLostIdsLikesOrFriendshipsUnderParallelLoad() throws Exception {
+        List<Integer> userIds = runAll(USERS, i -> userStorage.create(newUser(i)).getId());
+        List<Integer> filmIds = runAll(FILMS, i -> filmStorage.create(newFilm(i)).getId());
+        assertEquals(USERS, Set.copyOf(userIds).size());
+        assertEquals(FILMS, Set.copyOf(filmIds).size());
+
+        runAll(USERS * FILMS, i -> {
+            int filmId = filmIds.get(i % FILMS);
+            if (i % USERS == 0) {
+                Film film = filmStorage.findFilm(filmId);
+                film.setName("updated " + i);
+                filmStorage.update(film);
+            }
+            return filmStorage.addLike(filmId, userIds.get(i / FILMS));
+        });
+        runAll(USERS * (USERS - 1), i -> {
+            int id = userIds.get(i / (USERS - 1));
+            int friendIndex = i % (USERS - 1);
+            int friendId = userIds.get(friendIndex >= i / (USERS - 1) ? friendIndex + 1 : friendIndex);
+            userStorage.addFriend(id, friendId);
+            return null;
+        });
+
+        filmStorage.countLikes().values().forEach(count -> assertEquals(USERS, count));
+        for (int userId : userIds) {
+            assertEquals(USERS - 1, userStorage.findUser(userId).getFriends().size());
+        }
+        assertEquals(USERS - 2, userStorage.findCommonFriends(userIds.get(0), userIds.get(1)).size());
+    }
+
+    @Test
+    void popularFilmsByLikesAndNullGenresAsEmpty() {
+        int userId = userStorage.create(newUser(0)).getId();
+        Film film = newFilm(0);
+        film.setGenres(null);
+        Film first = filmStorage.create(film);
+        Film second = filmStorage.create(newFilm(1));
+        Film third = filmStorage.create(newFilm(2));
+        filmStorage.addLike(third.getId(), userId);
+        first.setGenres(null);
+        assertEquals(Set.of(), filmStorage.update(first).getGenres());
+
+        List<Integer> popular = filmStorage.findPopular(2).stream().map(Film::getId).toList();
+        assertEquals(List.of(third.getId(), first.getId()), popular);
+        assertEquals(Set.of(userId), filmStorage.findPopular(1).get(0).getLikes());
+        assertEquals(3, filmStorage.findPopular(10).size());
+        assertEquals(second.getId(), filmStorage.findPopular(10).get(2).getId());
+    }
+
+    private <T> List<T> runAll(int tasks, IndexedTask<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<T>> callables = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                callables.add(() -> task.run(index));
+            }
+            List<T> results = new ArrayList<>(tasks);
+            for (Future<T> future : executor.invokeAll(callables)) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static User newUser(int i) {
+        User user = new User();
+        user.setLogin("user" + i);
+        user.setEmail("user" + i + "@mail.com");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private static Film newFilm(int i) {
+        Film film = new Film();
+        film.setName("film" + i);
+        film.setDuration(100);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        return film;
+    }
+
+    @FunctionalInterface
+    private interface IndexedTask<T> {
+        T run(int index) throws Exception;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IntArraysTest {
+
+    @Test
+    void insertAndRemoveKeepOrder() {
+        int[] array = IntArrays.EMPTY;
+        array = IntArrays.insert(array, 5);
+        array = IntArrays.insert(array, 1);
+        array = IntArrays.insert(array, 3);
+        assertSame(array, IntArrays.insert(array, 3));
+        assertArrayEquals(new int[]{1, 3, 5}, array);
+
+        array = IntArrays.remove(array, 3);
+        assertSame(array, IntArrays.remove(array, 4));
+        assertArrayEquals(new int[]{1, 5}, array);
+    }
+
+    @Test
+    void intersectWithMergeAndGallop() {
+        assertArrayEquals(new int[]{3, 7}, IntArrays.intersect(new int[]{1, 3, 5, 7}, new int[]{2, 3, 7, 9}));
+
+        int[] large = IntStream.range(0, 10_000).map(i -> i * 2).toArray();
+        assertArrayEquals(new int[]{0, 4, 19_998}, IntArrays.intersect(new int[]{0, 3, 4, 19_998, 20_000}, large));
+        assertArrayEquals(new int[0], IntArrays.intersect(IntArrays.EMPTY, large));
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongIntHashMapTest {
+
+    @Test
+    void putGetAndOverwrite() {
+        LongIntHashMap map = new LongIntHashMap(0, -1);
+        assertEquals(-1, map.put(10_000_000_000L, 1));
+        assertEquals(-1, map.put(-5, 2));
+        assertEquals(1, map.put(10_000_000_000L, 3));
+
+        assertEquals(3, map.get(10_000_000_000L));
+        assertEquals(2, map.get(-5));
+        assertEquals(-1, map.get(0));
+        assertEquals(2, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        LongIntHashMap map = new LongIntHashMap(16, -1);
+        Map<Long, Integer> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextLong();
+            map.put(key, i);
+            expected.put(key, i);
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+}